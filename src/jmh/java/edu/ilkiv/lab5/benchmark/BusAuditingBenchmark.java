@@ -0,0 +1,68 @@
+package edu.ilkiv.lab5.benchmark;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusAuditingBenchmark
+  version 1.0.0
+  @since 18.10.2026 - 19:05
+*/
+
+import edu.ilkiv.lab5.config.AuditorAwareImpl;
+import edu.ilkiv.lab5.model.Bus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.auditing.IsNewAwareAuditingHandler;
+import org.springframework.data.mapping.context.PersistentEntities;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// filling the AuditMetadata fields the way the auditing entity callback does on every save,
+// next to plain setters as the floor
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusAuditingBenchmark {
+
+    private IsNewAwareAuditingHandler auditingHandler;
+    private AuditorAwareImpl auditorAware;
+
+    @Setup
+    public void setUp() {
+        // set up like the application's mapping context, which knows java.time types are simple values
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mappingContext.getPersistentEntity(Bus.class);
+        auditorAware = new AuditorAwareImpl();
+        auditingHandler = new IsNewAwareAuditingHandler(PersistentEntities.of(mappingContext));
+        auditingHandler.setAuditorAware(auditorAware);
+    }
+
+    @Benchmark
+    public Object auditNewBus() {
+        return auditingHandler.markAudited(new Bus("5555 AA", "000004", "description4"));
+    }
+
+    @Benchmark
+    public Object auditExistingBus() {
+        return auditingHandler.markAudited(new Bus("1", "1234 CE", "000001", "description1"));
+    }
+
+    @Benchmark
+    public Bus settersOnly() {
+        Bus bus = new Bus("5555 AA", "000004", "description4");
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        bus.setCreatedDate(now);
+        bus.setCreatedBy(auditor);
+        bus.setLastModifiedDate(now);
+        bus.setLastModifiedBy(auditor);
+        return bus;
+    }
+}
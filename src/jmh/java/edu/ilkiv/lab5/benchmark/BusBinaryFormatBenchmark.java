@@ -0,0 +1,92 @@
+package edu.ilkiv.lab5.benchmark;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusBinaryFormatBenchmark
+  version 1.0.0
+  @since 18.10.2026 - 23:10
+*/
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import edu.ilkiv.lab5.model.Bus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// a showAll/page body in JSON, CBOR and Smile, with mappers configured like BinaryFormatConfiguration's;
+// the encoded size of each list is printed once per trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusBinaryFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"20", "200"})
+    private int buses;
+
+    private ObjectWriter listWriter;
+    private ObjectReader listReader;
+    private List<Bus> list;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory(format))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, Bus.class);
+        listWriter = objectMapper.writerFor(listType);
+        listReader = objectMapper.readerFor(listType);
+
+        list = new ArrayList<>(buses);
+        for (int i = 0; i < buses; i++) {
+            Bus bus = new Bus(String.format("6620c1f2a4b5c6d7e8f9%04x", i), (1000 + i) + " CE",
+                    String.format("%06d", i), "description" + i);
+            bus.setCreatedDate(LocalDateTime.now());
+            bus.setCreatedBy("admin");
+            bus.setLastModifiedDate(LocalDateTime.now());
+            bus.setLastModifiedBy("admin");
+            bus.setVersion((long) i);
+            list.add(bus);
+        }
+        encoded = listWriter.writeValueAsBytes(list);
+        System.out.printf("%n%s payload for %d buses: %d bytes%n", format, buses, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] writeList() throws IOException {
+        return listWriter.writeValueAsBytes(list);
+    }
+
+    @Benchmark
+    public List<Bus> readList() throws IOException {
+        return listReader.readValue(encoded);
+    }
+
+    private static JsonFactory factory(String format) {
+        return switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+    }
+}
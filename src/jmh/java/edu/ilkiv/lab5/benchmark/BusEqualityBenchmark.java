@@ -0,0 +1,81 @@
+package edu.ilkiv.lab5.benchmark;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusEqualityBenchmark
+  version 1.0.0
+  @since 18.10.2026 - 19:05
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Bus.equals/hashCode go through the id, as in cache keys, sets of buses and List.contains
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusEqualityBenchmark {
+
+    @Param({"16", "1024"})
+    private int size;
+
+    private List<Bus> list;
+    private Set<Bus> set;
+    private Bus present;
+    private Bus absent;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Bus(new ObjectId().toHexString(), "BN " + i, "code-" + i, "description"));
+        }
+        set = new HashSet<>(list);
+        // equal by id, but a different instance, like a bus read back from Mongo
+        Bus last = list.get(size - 1);
+        present = new Bus(last.getId(), last.getBoardNumber(), last.getCode(), last.getDescription());
+        absent = new Bus(new ObjectId().toHexString(), "BN x", "code-x", "description");
+    }
+
+    @Benchmark
+    public int hashCodeOfBus() {
+        return present.hashCode();
+    }
+
+    @Benchmark
+    public boolean hashSetContainsHit() {
+        return set.contains(present);
+    }
+
+    @Benchmark
+    public boolean hashSetContainsMiss() {
+        return set.contains(absent);
+    }
+
+    @Benchmark
+    public boolean listContainsHit() {
+        return list.contains(present);
+    }
+
+    @Benchmark
+    public Map<Bus, Bus> buildHashMap() {
+        Map<Bus, Bus> map = new HashMap<>(size * 2);
+        for (Bus bus : list) {
+            map.put(bus, bus);
+        }
+        return map;
+    }
+}
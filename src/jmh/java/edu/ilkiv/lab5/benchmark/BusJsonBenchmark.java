@@ -0,0 +1,103 @@
+package edu.ilkiv.lab5.benchmark;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusJsonBenchmark
+  version 1.0.0
+  @since 18.10.2026 - 19:05
+*/
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusUpdateRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// request and response bodies as the controllers see them, with the object mapper Spring Boot builds
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusJsonBenchmark {
+
+    private ObjectWriter busWriter;
+    private ObjectReader busReader;
+    private ObjectWriter createWriter;
+    private ObjectReader createReader;
+    private ObjectWriter updateWriter;
+    private ObjectReader updateReader;
+
+    private Bus bus;
+    private BusCreateRequest createRequest;
+    private BusUpdateRequest updateRequest;
+    private byte[] busJson;
+    private byte[] createJson;
+    private byte[] updateJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        busWriter = objectMapper.writerFor(Bus.class);
+        busReader = objectMapper.readerFor(Bus.class);
+        createWriter = objectMapper.writerFor(BusCreateRequest.class);
+        createReader = objectMapper.readerFor(BusCreateRequest.class);
+        updateWriter = objectMapper.writerFor(BusUpdateRequest.class);
+        updateReader = objectMapper.readerFor(BusUpdateRequest.class);
+
+        bus = new Bus("6620c1f2a4b5c6d7e8f90123", "1234 CE", "000001", "description1");
+        bus.setCreatedDate(LocalDateTime.now());
+        bus.setCreatedBy("admin");
+        bus.setLastModifiedDate(LocalDateTime.now());
+        bus.setLastModifiedBy("admin");
+        bus.setVersion(3L);
+        createRequest = new BusCreateRequest("5555 AA", "000004", "description4");
+        updateRequest = new BusUpdateRequest("6620c1f2a4b5c6d7e8f90123", "1234 CE", "000001", "updated description");
+
+        busJson = busWriter.writeValueAsBytes(bus);
+        createJson = createWriter.writeValueAsBytes(createRequest);
+        updateJson = updateWriter.writeValueAsBytes(updateRequest);
+    }
+
+    @Benchmark
+    public byte[] writeBus() throws IOException {
+        return busWriter.writeValueAsBytes(bus);
+    }
+
+    @Benchmark
+    public Bus readBus() throws IOException {
+        return busReader.readValue(busJson);
+    }
+
+    @Benchmark
+    public byte[] writeCreateRequest() throws IOException {
+        return createWriter.writeValueAsBytes(createRequest);
+    }
+
+    @Benchmark
+    public BusCreateRequest readCreateRequest() throws IOException {
+        return createReader.readValue(createJson);
+    }
+
+    @Benchmark
+    public byte[] writeUpdateRequest() throws IOException {
+        return updateWriter.writeValueAsBytes(updateRequest);
+    }
+
+    @Benchmark
+    public BusUpdateRequest readUpdateRequest() throws IOException {
+        return updateReader.readValue(updateJson);
+    }
+}
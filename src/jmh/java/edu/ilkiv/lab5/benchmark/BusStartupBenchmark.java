@@ -0,0 +1,50 @@
+package edu.ilkiv.lab5.benchmark;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusStartupBenchmark
+  version 1.0.0
+  @since 19.10.2026 - 17:30
+*/
+
+import edu.ilkiv.lab5.Lab5Application;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// time to ready: one cold start of the whole application (until ApplicationReadyEvent) per iteration,
+// with and without the "seed" profile; needs a Mongo at startup.mongo-uri (localhost:27017 by default)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BusStartupBenchmark {
+
+    @Param({"", "seed"})
+    private String profiles;
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public ConfigurableApplicationContext timeToReady() {
+        context = new SpringApplicationBuilder(Lab5Application.class)
+                .profiles(profiles.isBlank() ? new String[0] : profiles.split(","))
+                .properties("server.port=0",
+                        "spring.data.mongodb.uri=" + System.getProperty("startup.mongo-uri",
+                                "mongodb://localhost:27017/lab5_startup"))
+                .run();
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        if (context != null) {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusMappingBenchmark
+  version 1.0.0
+  @since 18.10.2026 - 19:05
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// lives in the service package to reach the package-private BusRequests.toBus
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusMappingBenchmark {
+
+    private BusCreateRequest request;
+
+    @Setup
+    public void setUp() {
+        request = new BusCreateRequest("5555 AA", "000004", "description4");
+    }
+
+    @Benchmark
+    public Bus mapToBus() {
+        return BusRequests.toBus(request);
+    }
+}
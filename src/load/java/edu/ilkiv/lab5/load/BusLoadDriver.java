@@ -0,0 +1,185 @@
+package edu.ilkiv.lab5.load;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusLoadDriver
+  version 1.0.0
+  @since 18.10.2026 - 19:40
+*/
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// open model: requests are started at a fixed rate whether or not earlier ones have answered.
+// latency is measured from the time a request was due, not from when it was actually sent,
+// so a stalled server or client shows up in the percentiles instead of lowering the offered load.
+// every due request is in the histogram: errors with their elapsed time, and requests dropped at the
+// in-flight limit as the slowest trackable answer, since they never got one
+final class BusLoadDriver {
+
+    // one minute in microseconds, slower answers are clamped
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI baseUri;
+    private final BusLoadMix mix;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+
+    private final List<Seeded> seeded;
+    private final Queue<String> created = new ConcurrentLinkedQueue<>();
+    private final AtomicLong codeSequence = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private Map<BusRoute, RouteStats> stats;
+
+    record Seeded(String id, String code) {
+    }
+
+    static final class RouteStats {
+        // all due requests, successful or not
+        final Histogram latencyMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+    }
+
+    BusLoadDriver(URI baseUri, BusLoadMix mix, int maxInFlight, List<Seeded> seeded) {
+        this.baseUri = baseUri;
+        this.mix = mix;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.seeded = seeded;
+    }
+
+    // drives the mix at ratePerSecond for the given time and returns the stats of that run only
+    Map<BusRoute, RouteStats> drive(int ratePerSecond, int seconds) throws InterruptedException {
+        stats = new EnumMap<>(BusRoute.class);
+        mix.routes().forEach(route -> stats.put(route, new RouteStats()));
+        long interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(mix.pick(ThreadLocalRandom.current()), due);
+        }
+        // wait for the stragglers, then give the permits back for the next run; a run whose stragglers
+        // do not answer in time has no complete stats to report
+        if (!inFlight.tryAcquire(maxInFlight, 1, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Run incomplete: " + (maxInFlight - inFlight.availablePermits())
+                    + " requests still in flight a minute after the last one was due");
+        }
+        inFlight.release(maxInFlight);
+        return stats;
+    }
+
+    private void send(BusRoute route, long due) {
+        RouteStats routeStats = stats.get(route);
+        if (!inFlight.tryAcquire()) {
+            routeStats.dropped.incrementAndGet();
+            routeStats.latencyMicros.recordValue(HIGHEST_TRACKABLE_MICROS);
+            return;
+        }
+        HttpRequest request;
+        try {
+            request = request(route);
+        } catch (IOException e) {
+            inFlight.release();
+            throw new IllegalStateException(e);
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, failure) -> {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due);
+                    inFlight.release();
+                    routeStats.latencyMicros.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+                    if (failure != null || response.statusCode() >= 400) {
+                        routeStats.errors.incrementAndGet();
+                        return;
+                    }
+                    if (route == BusRoute.CREATE || route == BusRoute.CREATE_RAW) {
+                        rememberCreated(response.body());
+                    }
+                });
+    }
+
+    private HttpRequest request(BusRoute route) throws IOException {
+        return switch (route) {
+            case LIST -> HttpRequest.newBuilder(baseUri).GET().build();
+            case GET -> HttpRequest.newBuilder(baseUri.resolve(randomSeeded().id())).GET().build();
+            case CREATE -> post("dto", newBus(false));
+            case CREATE_RAW -> post("", newBus(true));
+            case UPDATE -> {
+                Seeded bus = randomSeeded();
+                ObjectNode body = objectMapper.createObjectNode()
+                        .put("id", bus.id())
+                        .put("boardNumber", "LD " + ThreadLocalRandom.current().nextInt(10_000))
+                        .put("code", bus.code())
+                        .put("description", "updated by the load harness");
+                yield HttpRequest.newBuilder(baseUri.resolve("dto"))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                        .build();
+            }
+            case DELETE -> {
+                // buses created during the run go first, so the seeded ones stay readable
+                String id = created.poll();
+                yield HttpRequest.newBuilder(baseUri.resolve(id != null ? id : new ObjectId().toHexString()))
+                        .DELETE().build();
+            }
+        };
+    }
+
+    private HttpRequest post(String path, ObjectNode body) throws IOException {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private ObjectNode newBus(boolean raw) {
+        long n = codeSequence.incrementAndGet();
+        return objectMapper.createObjectNode()
+                .put("boardNumber", "LD " + n)
+                .put("code", "load-" + runId + (raw ? "-r" : "-d") + n)
+                .put("description", "created by the load harness");
+    }
+
+    private void rememberCreated(String body) {
+        try {
+            JsonNode bus = objectMapper.readTree(body);
+            if (bus != null && bus.hasNonNull("id")) {
+                created.add(bus.get("id").asText());
+            }
+        } catch (IOException e) {
+            // an empty body (duplicate code) has nothing to remember
+        }
+    }
+
+    private Seeded randomSeeded() {
+        return seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+    }
+}
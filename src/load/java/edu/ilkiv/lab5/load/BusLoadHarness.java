@@ -0,0 +1,162 @@
+package edu.ilkiv.lab5.load;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusLoadHarness
+  version 1.0.0
+  @since 18.10.2026 - 19:40
+*/
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import edu.ilkiv.lab5.Lab5Application;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// starts the app (against an in-memory Mongo stand-in unless load.mongo-uri is given), seeds buses,
+// runs a warm-up and then the measured run, and reports throughput and latency percentiles per route.
+// settings are system properties, see the "load" profile in pom.xml for their defaults.
+// exits with 1 when load.max-p99-ms is set and a route's p99 is above it, for regression checks
+public final class BusLoadHarness {
+
+    private static final int SEED_BATCH = 500;
+
+    private BusLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("load.rate", 200);
+        int seconds = Integer.getInteger("load.seconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 5);
+        String mixSpec = System.getProperty("load.mix", "list=5,get=50,create=10,create-raw=5,update=20,delete=10");
+        BusLoadMix mix = BusLoadMix.parse(mixSpec);
+        int seed = Integer.getInteger("load.seed", 1000);
+        int maxInFlight = Integer.getInteger("load.max-in-flight", 2000);
+        String profiles = System.getProperty("load.profiles", "");
+        String mongoUri = System.getProperty("load.mongo-uri", "");
+        long maxP99Millis = Long.getLong("load.max-p99-ms", 0);
+        Path report = Path.of(System.getProperty("load.report", "target/load-report.csv"));
+
+        MongoServer mongoServer = null;
+        List<String> appArgs = new ArrayList<>(List.of("--server.port=0"));
+        if (mongoUri.isBlank()) {
+            mongoServer = new MongoServer(new MemoryBackend());
+            InetSocketAddress address = mongoServer.bind();
+            appArgs.add("--spring.data.mongodb.host=" + address.getHostString());
+            appArgs.add("--spring.data.mongodb.port=" + address.getPort());
+            appArgs.add("--spring.data.mongodb.database=bus_load");
+        } else {
+            appArgs.add("--spring.data.mongodb.uri=" + mongoUri);
+        }
+
+        boolean withinLimits;
+        try (ConfigurableApplicationContext app = new SpringApplicationBuilder(Lab5Application.class)
+                .profiles(profiles.isBlank() ? new String[0] : profiles.split(","))
+                .run(appArgs.toArray(String[]::new))) {
+            URI baseUri = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port")
+                    + "/api/v1/buses/");
+            BusLoadDriver driver = new BusLoadDriver(baseUri, mix, maxInFlight, seed(baseUri, seed));
+
+            System.out.printf("warm-up: %d req/s for %ds%n", rate, warmupSeconds);
+            driver.drive(rate, warmupSeconds);
+            System.out.printf("measuring: %d req/s for %ds, mix %s, profiles [%s]%n",
+                    rate, seconds, mixSpec, profiles);
+            Map<BusRoute, BusLoadDriver.RouteStats> stats = driver.drive(rate, seconds);
+            withinLimits = report(stats, seconds, maxP99Millis, report);
+        } finally {
+            if (mongoServer != null) {
+                mongoServer.shutdownNow();
+            }
+        }
+        System.exit(withinLimits ? 0 : 1);
+    }
+
+    // bulk-creates the buses that get and update pick from
+    private static List<BusLoadDriver.Seeded> seed(URI baseUri, int count) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<BusLoadDriver.Seeded> seeded = new ArrayList<>(count);
+        String prefix = "seed-" + Long.toString(System.currentTimeMillis(), 36) + "-";
+        for (int from = 0; from < count; from += SEED_BATCH) {
+            ArrayNode batch = objectMapper.createArrayNode();
+            for (int i = from; i < Math.min(from + SEED_BATCH, count); i++) {
+                batch.addObject()
+                        .put("boardNumber", "SD " + i)
+                        .put("code", prefix + i)
+                        .put("description", "seeded by the load harness");
+            }
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve("dto/bulk"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            for (JsonNode result : objectMapper.readTree(response.body())) {
+                JsonNode bus = result.get("bus");
+                if (bus != null && !bus.isNull()) {
+                    seeded.add(new BusLoadDriver.Seeded(bus.get("id").asText(), bus.get("code").asText()));
+                }
+            }
+        }
+        if (seeded.isEmpty()) {
+            throw new IllegalStateException("Seeding created no buses, load.seed must be positive");
+        }
+        return seeded;
+    }
+
+    private static boolean report(Map<BusRoute, BusLoadDriver.RouteStats> stats, int seconds, long maxP99Millis,
+                                  Path report) throws IOException {
+        boolean withinLimits = true;
+        String header = "route,count,errors,dropped,throughput_per_s,p50_ms,p99_ms,p999_ms,max_ms";
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(report))) {
+            csv.println(header);
+            System.out.printf("%-11s %8s %7s %8s %9s %9s %9s %9s %9s%n",
+                    "route", "count", "errors", "dropped", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (Map.Entry<BusRoute, BusLoadDriver.RouteStats> entry : stats.entrySet()) {
+                BusLoadDriver.RouteStats routeStats = entry.getValue();
+                Histogram histogram = routeStats.latencyMicros;
+                // count includes errors and drops, throughput only the successful answers
+                long count = histogram.getTotalCount();
+                double p50 = millis(histogram.getValueAtPercentile(50));
+                double p99 = millis(histogram.getValueAtPercentile(99));
+                double p999 = millis(histogram.getValueAtPercentile(99.9));
+                double max = millis(histogram.getMaxValue());
+                double throughput = (double) (count - routeStats.errors.get() - routeStats.dropped.get()) / seconds;
+                System.out.printf("%-11s %8d %7d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey().key(), count,
+                        routeStats.errors.get(), routeStats.dropped.get(), throughput, p50, p99, p999, max);
+                csv.printf(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f%n", entry.getKey().key(),
+                        count, routeStats.errors.get(), routeStats.dropped.get(), throughput, p50, p99, p999, max);
+                if (maxP99Millis > 0 && p99 > maxP99Millis) {
+                    System.out.printf("%s: p99 %.2f ms is above load.max-p99-ms=%d%n",
+                            entry.getKey().key(), p99, maxP99Millis);
+                    withinLimits = false;
+                }
+            }
+        }
+        System.out.println("report written to " + report.toAbsolutePath());
+        return withinLimits;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
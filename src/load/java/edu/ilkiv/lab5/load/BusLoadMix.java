@@ -0,0 +1,55 @@
+package edu.ilkiv.lab5.load;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusLoadMix
+  version 1.0.0
+  @since 18.10.2026 - 19:40
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+// weighted route mix parsed from "list=5,get=50,create=10,...", weights need not add up to 100
+final class BusLoadMix {
+
+    private final List<BusRoute> routes = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private int totalWeight;
+
+    static BusLoadMix parse(String mix) {
+        BusLoadMix parsed = new BusLoadMix();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected route=weight in load.mix, got: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                parsed.totalWeight += weight;
+                parsed.routes.add(BusRoute.of(parts[0].trim()));
+                parsed.cumulativeWeights.add(parsed.totalWeight);
+            }
+        }
+        if (parsed.routes.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no route with a positive weight: " + mix);
+        }
+        return parsed;
+    }
+
+    List<BusRoute> routes() {
+        return routes;
+    }
+
+    BusRoute pick(RandomGenerator random) {
+        int ticket = random.nextInt(totalWeight);
+        for (int i = 0; i < routes.size(); i++) {
+            if (ticket < cumulativeWeights.get(i)) {
+                return routes.get(i);
+            }
+        }
+        return routes.get(routes.size() - 1);
+    }
+}
@@ -0,0 +1,38 @@
+package edu.ilkiv.lab5.load;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusRoute
+  version 1.0.0
+  @since 18.10.2026 - 19:40
+*/
+
+import java.util.Arrays;
+
+// the BusRestController routes the harness can drive, keyed by the names used in load.mix
+enum BusRoute {
+    LIST("list"),
+    GET("get"),
+    CREATE("create"),
+    CREATE_RAW("create-raw"),
+    UPDATE("update"),
+    DELETE("delete");
+
+    private final String key;
+
+    BusRoute(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static BusRoute of(String key) {
+        return Arrays.stream(values())
+                .filter(route -> route.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown route in load.mix: " + key));
+    }
+}
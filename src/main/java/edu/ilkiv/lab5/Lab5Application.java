@@ -2,12 +2,16 @@ package edu.ilkiv.lab5;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class Lab5Application {
 
     public static void main(String[] args) {
-        SpringApplication.run(Lab5Application.class, args);
+        SpringApplication application = new SpringApplication(Lab5Application.class);
+        // records the startup phases (bean creation, context refresh, index creation) for /actuator/startup
+        application.setApplicationStartup(new BufferingApplicationStartup(4096));
+        application.run(args);
     }
 
 }
@@ -12,9 +12,12 @@ package edu.ilkiv.lab5.config;
 import java.util.Optional;
 
 public class AuditorAwareImpl implements org.springframework.data.domain.AuditorAware<String> {
+    // asked on every save (and for every audit entry), while the process user never changes
+    private static final Optional<String> AUDITOR = Optional.of(System.getProperty("user.name"));
+
     @Override
     public Optional<String> getCurrentAuditor() {
         //return Optional.of("admin");
-        return Optional.of(System.getProperty("user.name"));
+        return AUDITOR;
     }
 }
@@ -0,0 +1,54 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BinaryFormatConfiguration
+  version 1.0.0
+  @since 18.10.2026 - 22:45
+*/
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+// application/cbor and application/x-jackson-smile next to JSON, picked by the Accept and Content-Type headers.
+// The mappers come from Boot's Jackson2ObjectMapperBuilder (a new one per injection point), so buses keep
+// the JSON shape: ISO dates, nulls left out. JSON stays the default for Accept: */*.
+@Configuration
+public class BinaryFormatConfiguration {
+
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // replaces the default CBOR/Smile converters in place, after the JSON one
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // WebFlux only gets Smile: Jackson2CborEncoder cannot encode a Flux and would claim every */* list response
+    @Bean
+    @Profile("reactive")
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE));
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class CacheConfiguration
+  version 1.0.0
+  @since 18.10.2026 - 12:10
+*/
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@EnableCaching
+@Configuration
+public class CacheConfiguration {
+}
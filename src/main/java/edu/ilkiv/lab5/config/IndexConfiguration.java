@@ -0,0 +1,103 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class IndexConfiguration
+  version 1.0.0
+  @since 18.10.2026 - 21:40
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.model.BusAuditEntry;
+import edu.ilkiv.lab5.model.IdempotencyRecord;
+import com.mongodb.MongoException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.Set;
+
+// creates the indexes declared on Bus and BusAuditEntry (@Indexed, @TextIndexed) once the context is up,
+// instead of relying on spring.data.mongodb.auto-index-creation (which the "reactive" profile uses instead)
+@Slf4j
+@Configuration
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class IndexConfiguration {
+
+    // IndexOptionsConflict, IndexKeySpecsConflict
+    private static final Set<Integer> CHANGED_INDEX_CODES = Set.of(85, 86);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final ApplicationStartup applicationStartup;
+
+    @Value("${bus.idempotency.ttl:24h}")
+    private Duration idempotencyTtl = Duration.ofHours(24);
+
+    // ensureIndex is a no-op for indexes that already exist with the same definition
+    @Order(0)
+    @EventListener(ContextRefreshedEvent.class)
+    public void ensureIndexes() {
+        StartupStep step = applicationStartup.start("bus.indexes.ensure");
+        ensureDeclaredIndexes(Bus.class);
+        ensureDeclaredIndexes(BusAuditEntry.class);
+        // Idempotency-Key records expire idempotencyTtl after they were written; named like Mongo's default
+        // name, so a changed TTL finds and recreates the index created before
+        ensureIndex(mongoTemplate.indexOps(IdempotencyRecord.class),
+                new Index().on("createdAt", Sort.Direction.ASC).named("createdAt_1").expire(idempotencyTtl));
+        step.end();
+    }
+
+    private void ensureDeclaredIndexes(Class<?> type) {
+        IndexOperations indexOps = mongoTemplate.indexOps(type);
+        new MongoPersistentEntityIndexResolver(mappingContext)
+                .resolveIndexFor(type)
+                .forEach(index -> {
+                    ensureIndex(indexOps, index);
+                    log.debug("Ensured index {} on {}", index.getIndexKeys(), mongoTemplate.getCollectionName(type));
+                });
+    }
+
+    // an index whose declaration changed (e.g. code becoming sparse) exists under the same name with the old
+    // options, Mongo refuses to redefine it in place, so it is dropped and created again
+    private void ensureIndex(IndexOperations indexOps, IndexDefinition index) {
+        try {
+            indexOps.ensureIndex(index);
+        } catch (DataAccessException e) {
+            String name = index.getIndexOptions().getString("name");
+            if (name == null || !isChangedIndex(e)) {
+                throw e;
+            }
+            log.info("Index {} was declared with other options, recreating it", name);
+            indexOps.dropIndex(name);
+            indexOps.ensureIndex(index);
+        }
+    }
+
+    private boolean isChangedIndex(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof MongoException mongoError && CHANGED_INDEX_CODES.contains(mongoError.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class MetricsConfiguration
+  version 1.0.0
+  @since 18.10.2026 - 20:10
+*/
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Mongo command timers and pool gauges come from the listeners Spring Boot registers on the MongoClient,
+// route timers from the http.server.requests observation; this adds @Timed for the service layer
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class MongoRepositoryConfiguration
+  version 1.0.0
+  @since 19.10.2026 - 18:10
+*/
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+// the servlet build ships without Reactor, and telling a reactive repository from a blocking one means
+// loading its method signatures, so the Reactive* repositories are left out of the blocking scan by name
+@Profile("!reactive")
+@EnableMongoRepositories(basePackages = "edu.ilkiv.lab5.repository",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX, pattern = ".*\\.Reactive[^.]*"))
+@Configuration
+public class MongoRepositoryConfiguration {
+}
@@ -0,0 +1,29 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveAuditionConfiguration
+  version 1.0.0
+  @since 18.10.2026 - 16:55
+*/
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.domain.ReactiveAuditorAware;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
+import reactor.core.publisher.Mono;
+
+// the reactive template only runs reactive entity callbacks, so auditing is enabled for it separately
+@Profile("reactive")
+@EnableReactiveMongoAuditing
+@Configuration
+public class ReactiveAuditionConfiguration {
+
+    @Bean
+    public ReactiveAuditorAware<String> reactiveAuditorAware(AuditorAware<String> auditorAware) {
+        return () -> Mono.justOrEmpty(auditorAware.getCurrentAuditor());
+    }
+}
@@ -0,0 +1,25 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveWebConfiguration
+  version 1.0.0
+  @since 18.10.2026 - 17:10
+*/
+
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Tomcat is on the classpath for the servlet stack and would otherwise be picked for WebFlux too
+@Profile("reactive")
+@Configuration
+public class ReactiveWebConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
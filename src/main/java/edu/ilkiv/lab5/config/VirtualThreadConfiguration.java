@@ -0,0 +1,48 @@
+package edu.ilkiv.lab5.config;
+
+/*
+  @author Bodya
+  @project lab5
+  @class VirtualThreadConfiguration
+  version 1.0.0
+  @since 18.10.2026 - 18:20
+*/
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// "virtual" profile: spring.threads.virtual.enabled puts Tomcat and the application task executor
+// on virtual threads, so the Mongo connection pool becomes the limit on concurrent requests
+@Slf4j
+@Profile("virtual")
+@Configuration
+public class VirtualThreadConfiguration {
+
+    @Value("${bus.mongo.max-pool-size:500}")
+    private int maxPoolSize = 500;
+
+    @Value("${bus.mongo.max-wait-time:2s}")
+    private Duration maxWaitTime = Duration.ofSeconds(2);
+
+    @PostConstruct
+    void checkRuntime() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("Virtual threads need Java 21, running on {} with platform threads", Runtime.version());
+        }
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer virtualThreadPoolSizing() {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxPoolSize)
+                .maxWaitTime(maxWaitTime.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
@@ -1,12 +1,29 @@
 package edu.ilkiv.lab5.controller;
 
 import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusDeleteRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
 import edu.ilkiv.lab5.request.BusUpdateRequest;
 import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.response.BusBatch;
+import edu.ilkiv.lab5.response.BusBulkResult;
+import edu.ilkiv.lab5.response.BusDeleteResult;
+import edu.ilkiv.lab5.response.BusETags;
+import edu.ilkiv.lab5.response.BusPage;
 import edu.ilkiv.lab5.service.BusService;
+import edu.ilkiv.lab5.service.IdempotencyService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.Duration;
 import java.util.List;
 
 /*
@@ -18,47 +35,121 @@ import java.util.List;
 */
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/v1/buses/")
 @RequiredArgsConstructor
 public class BusRestController {
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final BusService busService;
+    private final IdempotencyService idempotencyService;
+
+    @Value("${bus.export.timeout:30m}")
+    private Duration exportTimeout = Duration.ofMinutes(30);
 
 
     // CRUD   create read update delete
 
-    // read all
+    // read all, ?fields=id,code,boardNumber reads and returns only those fields
     @RequestMapping
-    public List<Bus> showAll() {
-        return busService.getAll();
+    public List<Bus> showAll(@RequestParam(required = false) String fields) {
+        return busService.getAll(fields);
+    }
+
+    // read a page (keyset on id, cursor is the nextCursor of the previous page)
+    @GetMapping("page")
+    public BusPage showPage(@RequestParam(required = false) String cursor,
+                            @RequestParam(required = false) Integer size,
+                            @RequestParam(required = false) String fields) {
+        return busService.getPage(cursor, size, fields);
+    }
+
+    // search by exact code, boardNumber prefix and/or full-text q over description, paged like "page"
+    @GetMapping("search")
+    public BusPage search(@RequestParam(required = false) String code,
+                          @RequestParam(required = false) String boardNumber,
+                          @RequestParam(required = false) String q,
+                          @RequestParam(required = false) String cursor,
+                          @RequestParam(required = false) Integer size) {
+        return busService.search(code, boardNumber, q, cursor, size);
+    }
+
+    // export all as newline-delimited json, written off the request thread under its own
+    // bus.export.timeout, every other async request keeps the default timeout
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public WebAsyncTask<Void> export(HttpServletResponse response) {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            busService.export(response.getOutputStream());
+            return null;
+        });
     }
 
-    // read one
+    // read one, answers 304 when If-None-Match carries the current ETag
     @GetMapping("{id}")
-    public Bus showOneById(@PathVariable String id) {
+    public ResponseEntity<Bus> showOneById(@PathVariable String id, @RequestParam(required = false) String fields) {
         String str = id;
-        return busService.getById(id);
+        if (StringUtils.hasText(fields)) {
+            // a partial representation carries no version, so it is sent without an ETag
+            return ResponseEntity.ok(busService.getById(id, fields));
+        }
+        return BusETags.withETag(busService.getById(id));
+    }
+
+    // read many by id in one query: the body is a json array of ids, the answer keeps their order
+    // and lists the ids that were not found
+    @PostMapping("batch")
+    public BusBatch showBatch(@RequestBody List<String> ids) {
+        return busService.getByIds(ids);
     }
 
     //============== request =====================
+    // creates honor Idempotency-Key: a retry with the same key replays the first result
     @PostMapping("/dto")
-    public Bus insert(@RequestBody BusCreateRequest request) {
-        return busService.create(request);
+    public Bus insert(@RequestBody BusCreateRequest request,
+                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /dto", request, Bus.class,
+                () -> busService.create(request));
+    }
+
+    @PostMapping("/dto/bulk")
+    public List<BusBulkResult> insertAll(@RequestBody List<BusCreateRequest> requests,
+                                         @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyService.executeList(idempotencyKey, "POST /dto/bulk", requests, BusBulkResult.class,
+                () -> busService.createAll(requests));
     }
 
     @PostMapping
-    public Bus insert(@RequestBody Bus bus) {
-        return busService.create(bus);
+    public Bus insert(@RequestBody Bus bus,
+                      @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /", bus, Bus.class,
+                () -> busService.create(bus));
     }
 
     //============== request =====================
+    // updates honor If-Match and answer 412 when the bus has moved on to another version
     @PutMapping("/dto")
-    public Bus edit(@RequestBody BusUpdateRequest request) {
-        return busService.update(request);
+    public ResponseEntity<Bus> edit(@RequestBody BusUpdateRequest request,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return BusETags.withETag(busService.update(request, BusETags.versionOf(ifMatch, request.id())));
     }
 
     @PutMapping
-    public Bus edit(@RequestBody Bus bus) {
-        return busService.update(bus);
+    public ResponseEntity<Bus> edit(@RequestBody Bus bus,
+                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return BusETags.withETag(busService.update(bus, BusETags.versionOf(ifMatch, bus.getId())));
+    }
+
+    @PatchMapping("{id}")
+    public ResponseEntity<Bus> patch(@PathVariable String id, @RequestBody BusPatchRequest request,
+                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return BusETags.withETag(busService.patch(id, request, BusETags.versionOf(ifMatch, id)));
+    }
+
+    // bulk delete by ids and/or filter (codePrefix, lastModifiedBefore) in one deleteMany, answers the deleted count
+    @PostMapping("bulk-delete")
+    public BusDeleteResult deleteAll(@RequestBody BusDeleteRequest request) {
+        return busService.deleteAll(request);
     }
 
     @DeleteMapping("{id}")
@@ -0,0 +1,133 @@
+package edu.ilkiv.lab5.controller;
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusDeleteRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
+import edu.ilkiv.lab5.request.BusUpdateRequest;
+import edu.ilkiv.lab5.response.BusBatch;
+import edu.ilkiv.lab5.response.BusBulkResult;
+import edu.ilkiv.lab5.response.BusDeleteResult;
+import edu.ilkiv.lab5.response.BusETags;
+import edu.ilkiv.lab5.response.BusPage;
+import edu.ilkiv.lab5.service.ReactiveBusService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveBusRestController
+  version 1.0.0
+  @since 18.10.2026 - 16:50
+*/
+
+// same routes as BusRestController, served by WebFlux when the "reactive" profile is active
+@RestController
+@Profile("reactive")
+@RequestMapping("api/v1/buses/")
+@RequiredArgsConstructor
+public class ReactiveBusRestController {
+    private final ReactiveBusService busService;
+
+    // read all; as application/x-ndjson every bus is written as soon as the cursor hands it over,
+    // and the cursor is only asked for more while the client keeps reading
+    @RequestMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Bus> showAll(@RequestParam(required = false) String fields) {
+        return busService.getAll(fields);
+    }
+
+    @GetMapping("page")
+    public Mono<BusPage> showPage(@RequestParam(required = false) String cursor,
+                                  @RequestParam(required = false) Integer size,
+                                  @RequestParam(required = false) String fields) {
+        return busService.getPage(cursor, size, fields);
+    }
+
+    @GetMapping("search")
+    public Mono<BusPage> search(@RequestParam(required = false) String code,
+                                @RequestParam(required = false) String boardNumber,
+                                @RequestParam(required = false) String q,
+                                @RequestParam(required = false) String cursor,
+                                @RequestParam(required = false) Integer size) {
+        return busService.search(code, boardNumber, q, cursor, size);
+    }
+
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Bus> export() {
+        return busService.streamAll();
+    }
+
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<Bus>> showOneById(@PathVariable String id, @RequestParam(required = false) String fields) {
+        if (StringUtils.hasText(fields)) {
+            return busService.getById(id, fields)
+                    .map(ResponseEntity::ok)
+                    .defaultIfEmpty(BusETags.withETag(null));
+        }
+        return busService.getById(id)
+                .map(BusETags::withETag)
+                .defaultIfEmpty(BusETags.withETag(null));
+    }
+
+    @PostMapping("batch")
+    public Mono<BusBatch> showBatch(@RequestBody List<String> ids) {
+        return busService.getByIds(ids);
+    }
+
+    //============== request =====================
+    @PostMapping("/dto")
+    public Mono<Bus> insert(@RequestBody BusCreateRequest request) {
+        return busService.create(request);
+    }
+
+    @PostMapping("/dto/bulk")
+    public Mono<List<BusBulkResult>> insertAll(@RequestBody List<BusCreateRequest> requests) {
+        return busService.createAll(requests);
+    }
+
+    @PostMapping
+    public Mono<Bus> insert(@RequestBody Bus bus) {
+        return busService.create(bus);
+    }
+
+    //============== request =====================
+    @PutMapping("/dto")
+    public Mono<ResponseEntity<Bus>> edit(@RequestBody BusUpdateRequest request,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return busService.update(request, BusETags.versionOf(ifMatch, request.id())).map(BusETags::withETag);
+    }
+
+    @PutMapping
+    public Mono<ResponseEntity<Bus>> edit(@RequestBody Bus bus,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return busService.update(bus, BusETags.versionOf(ifMatch, bus.getId())).map(BusETags::withETag);
+    }
+
+    @PatchMapping("{id}")
+    public Mono<ResponseEntity<Bus>> patch(@PathVariable String id, @RequestBody BusPatchRequest request,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return busService.patch(id, request, BusETags.versionOf(ifMatch, id))
+                .map(BusETags::withETag)
+                .defaultIfEmpty(BusETags.withETag(null));
+    }
+
+    @PostMapping("bulk-delete")
+    public Mono<BusDeleteResult> deleteAll(@RequestBody BusDeleteRequest request) {
+        return busService.deleteAll(request);
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<Void> delete(@PathVariable String id) {
+        return busService.delById(id);
+    }
+}
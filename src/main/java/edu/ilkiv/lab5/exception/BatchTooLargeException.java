@@ -0,0 +1,20 @@
+package edu.ilkiv.lab5.exception;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BatchTooLargeException
+  version 1.0.0
+  @since 18.10.2026 - 23:30
+*/
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BatchTooLargeException extends RuntimeException {
+
+    public BatchTooLargeException(int size, int maxSize) {
+        super("Batch of " + size + " ids exceeds the limit of " + maxSize);
+    }
+}
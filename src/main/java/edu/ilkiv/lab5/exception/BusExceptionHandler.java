@@ -0,0 +1,27 @@
+package edu.ilkiv.lab5.exception;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusExceptionHandler
+  version 1.0.0
+  @since 19.10.2026 - 18:30
+*/
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// errors thrown by Spring Data rather than by this application, so they cannot carry @ResponseStatus;
+// applies to both the servlet and the reactive controllers
+@RestControllerAdvice
+public class BusExceptionHandler {
+
+    // a create, update or patch whose code is already taken by another bus (unique index on code)
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ProblemDetail handleDuplicateKey(DuplicateKeyException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "A bus with this code already exists");
+    }
+}
@@ -0,0 +1,21 @@
+package edu.ilkiv.lab5.exception;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusVersionConflictException
+  version 1.0.0
+  @since 18.10.2026 - 15:20
+*/
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class BusVersionConflictException extends OptimisticLockingFailureException {
+
+    public BusVersionConflictException(String id) {
+        super("Bus " + id + " does not match the expected version");
+    }
+}
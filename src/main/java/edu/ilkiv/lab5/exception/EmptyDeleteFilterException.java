@@ -0,0 +1,20 @@
+package edu.ilkiv.lab5.exception;
+
+/*
+  @author Bodya
+  @project lab5
+  @class EmptyDeleteFilterException
+  version 1.0.0
+  @since 18.10.2026 - 23:50
+*/
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class EmptyDeleteFilterException extends RuntimeException {
+
+    public EmptyDeleteFilterException() {
+        super("A bulk delete needs ids, a codePrefix or lastModifiedBefore");
+    }
+}
@@ -0,0 +1,20 @@
+package edu.ilkiv.lab5.exception;
+
+/*
+  @author Bodya
+  @project lab5
+  @class IdempotencyKeyInProgressException
+  version 1.0.0
+  @since 19.10.2026 - 09:10
+*/
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String key) {
+        super("A request with Idempotency-Key " + key + " is still being processed");
+    }
+}
@@ -8,11 +8,14 @@ package edu.ilkiv.lab5.model;
   @since 24.04.2025 - 20:59 
 */
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.Indexed;
 
 import java.time.LocalDateTime;
 
@@ -24,7 +27,14 @@ public class AuditMetadata {
     @CreatedBy
     private String createdBy;
     @LastModifiedDate
+    @Indexed
     private LocalDateTime lastModifiedDate;
     @LastModifiedBy
     private String lastModifiedBy;
+    // optimistic lock, checked and bumped by BusRepository.save
+    private Long version;
+    // set on a bus parked by the write-behind buffer: its version is only assigned by the flush
+    @Transient
+    @JsonIgnore
+    private boolean parked;
 }
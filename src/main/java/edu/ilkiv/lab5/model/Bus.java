@@ -8,7 +8,10 @@ package edu.ilkiv.lab5.model;
   @since 18.04.2025 - 16:39 
 */
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
@@ -19,10 +22,17 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @ToString
 @Document
 @Builder
+// unset fields (e.g. left out by a ?fields= projection) are not serialized
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Bus extends AuditMetadata {
     private String id;
+    @Indexed
     private String boardNumber;
+    // sparse: buses without a code do not collide with each other
+    @Indexed(unique = true, sparse = true)
     private String code;
+    // backs the q= full-text search
+    @TextIndexed
     private String description;
 
     public Bus(String boardNumber, String code, String description) {
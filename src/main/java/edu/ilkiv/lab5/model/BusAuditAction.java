@@ -0,0 +1,17 @@
+package edu.ilkiv.lab5.model;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusAuditAction
+  version 1.0.0
+  @since 19.10.2026 - 10:30
+*/
+
+public enum BusAuditAction {
+    CREATE,
+    UPDATE,
+    PATCH,
+    DELETE,
+    DELETE_MANY
+}
@@ -0,0 +1,47 @@
+package edu.ilkiv.lab5.model;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusAuditEntry
+  version 1.0.0
+  @since 19.10.2026 - 10:30
+*/
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// one change to a bus: who did what, and the bus before and after it when the write path had them at hand
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("busAudit")
+public class BusAuditEntry {
+    private String id;
+    @Indexed
+    private String busId;
+    private BusAuditAction action;
+    private String auditor;
+    private LocalDateTime at;
+    private State before;
+    private State after;
+    // free-form details, e.g. the filter and count of a DELETE_MANY
+    private String note;
+
+    // the note of an UPDATE whose write path does not read the stored bus, so before is missing on purpose
+    public static final String NO_BEFORE_STATE = "whole-bus PUT, written without reading the stored bus";
+
+    // a copy of the bus fields, not a Bus, so the indexes declared on Bus are not resolved for busAudit
+    public record State(String boardNumber, String code, String description, Long version) {
+
+        public static State of(Bus bus) {
+            return bus == null ? null
+                    : new State(bus.getBoardNumber(), bus.getCode(), bus.getDescription(), bus.getVersion());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package edu.ilkiv.lab5.model;
+
+/*
+  @author Bodya
+  @project lab5
+  @class IdempotencyRecord
+  version 1.0.0
+  @since 19.10.2026 - 09:10
+*/
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+// the outcome of a request sent with an Idempotency-Key, removed by a TTL index on createdAt
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("idempotencyKeys")
+public class IdempotencyRecord {
+    // route scope plus the client's key, e.g. "POST /dto 5f1c..."
+    private String id;
+    // digest of the request body, a reused key with another body is refused
+    private String fingerprint;
+    // json of the original result, null while the first request is still running
+    private String response;
+    private Date createdAt;
+    // when the running request claimed the key; after bus.idempotency.lease a retry may take it over
+    private Date claimedAt;
+}
@@ -0,0 +1,168 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusQueries
+  version 1.0.0
+  @since 18.10.2026 - 16:05
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// queries shared by the blocking and the reactive custom repositories
+final class BusQueries {
+
+    private BusQueries() {
+    }
+
+    static Query pageAfter(String lastId, int limit, Collection<String> fields) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .limit(limit);
+        if (lastId != null) {
+            query.addCriteria(idAfter(lastId));
+        }
+        return withFields(query, fields);
+    }
+
+    // every given criterion is and-ed: code hits the unique index, the boardNumber prefix the boardNumber
+    // index, q goes through the text index on description
+    static Query searchAfter(String code, String boardNumberPrefix, String text, String lastId, int limit) {
+        Query query = pageAfter(lastId, limit, null);
+        if (code != null) {
+            query.addCriteria(Criteria.where("code").is(code));
+        }
+        if (boardNumberPrefix != null) {
+            query.addCriteria(startsWith("boardNumber", boardNumberPrefix));
+        }
+        if (text != null) {
+            query.addCriteria(TextCriteria.forDefaultLanguage().matching(text));
+        }
+        return query;
+    }
+
+    // and-ed like searchAfter; the caller makes sure at least one criterion is set
+    static Query deleteMatching(Collection<String> ids, String codePrefix, LocalDateTime lastModifiedBefore) {
+        Query query = new Query();
+        if (ids != null) {
+            query.addCriteria(Criteria.where("id").in(ids));
+        }
+        if (codePrefix != null) {
+            query.addCriteria(startsWith("code", codePrefix));
+        }
+        if (lastModifiedBefore != null) {
+            query.addCriteria(Criteria.where("lastModifiedDate").lt(lastModifiedBefore));
+        }
+        return query;
+    }
+
+    // null fields leave the query reading whole documents
+    static Query withFields(Query query, Collection<String> fields) {
+        if (fields != null) {
+            query.fields().include(fields.toArray(String[]::new));
+        }
+        return query;
+    }
+
+    static Query all(int batchSize) {
+        return new Query()
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(batchSize);
+    }
+
+    static Query byId(String id) {
+        return Query.query(Criteria.where("id").is(id));
+    }
+
+    // documents written before versioning have no version field and count as version 0 (see BusETags.etagOf)
+    static Query byVersion(String id, long version) {
+        if (version == 0) {
+            return Query.query(Criteria.where("id").is(id).orOperator(
+                    Criteria.where("version").is(0L),
+                    Criteria.where("version").exists(false)));
+        }
+        return Query.query(Criteria.where("id").is(id).and("version").is(version));
+    }
+
+    // a whole-bus write applied as an upsert (write-behind, unversioned save): every field is written, null ones included,
+    // the audit fields come from the bus and the version is bumped; upserted buses start at version 1
+    static Update overwrite(Bus bus) {
+        return new Update()
+                .set("boardNumber", bus.getBoardNumber())
+                .set("code", bus.getCode())
+                .set("description", bus.getDescription())
+                .set("lastModifiedDate", bus.getLastModifiedDate())
+                .set("lastModifiedBy", bus.getLastModifiedBy())
+                .setOnInsert("createdDate", bus.getLastModifiedDate())
+                .setOnInsert("createdBy", bus.getLastModifiedBy())
+                .inc("version", 1);
+    }
+
+    // an upsert that only ever inserts: a bus already stored under the id is left untouched
+    static Update insertOnly(Bus bus) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Update()
+                .setOnInsert("boardNumber", bus.getBoardNumber())
+                .setOnInsert("code", bus.getCode())
+                .setOnInsert("description", bus.getDescription())
+                .setOnInsert("createdDate", now)
+                .setOnInsert("lastModifiedDate", now)
+                .setOnInsert("version", 0L);
+    }
+
+    // the ids of bulk-inserted buses are assigned up front, so the auditing handler takes them for stored
+    // buses and only sets the last-modified fields; every bus in a bulk insert is new
+    static void markCreated(List<Bus> buses, String createdBy) {
+        LocalDateTime now = LocalDateTime.now();
+        buses.stream()
+                .filter(bus -> bus.getCreatedDate() == null)
+                .forEach(bus -> {
+                    bus.setCreatedDate(now);
+                    bus.setCreatedBy(createdBy);
+                });
+    }
+
+    // findAndModify bypasses the auditing callbacks, so the audit fields are set here
+    static Update patch(Map<String, Object> fields, String modifiedBy) {
+        Update update = new Update();
+        fields.forEach(update::set);
+        update.set("lastModifiedDate", LocalDateTime.now());
+        update.set("lastModifiedBy", modifiedBy);
+        update.inc("version", 1);
+        return update;
+    }
+
+    // an anchored case-sensitive regex is turned into an index range scan; a plain escaped prefix
+    // keeps tight bounds, unlike a Pattern.quote()d one
+    private static Criteria startsWith(String field, String prefix) {
+        return Criteria.where(field).regex("^" + escapeRegex(prefix));
+    }
+
+    private static String escapeRegex(String literal) {
+        return literal.replaceAll("[\\\\^$.|?*+()\\[\\]{}]", "\\\\$0");
+    }
+
+    private static Criteria idAfter(String lastId) {
+        if (ObjectId.isValid(lastId)) {
+            return Criteria.where("id").gt(new ObjectId(lastId));
+        }
+        // plain string ids (e.g. the seeded "1", "2", "3") sort before ObjectIds in BSON order,
+        // so once the string range is exhausted the page continues with every ObjectId
+        return new Criteria().orOperator(
+                Criteria.where("id").gt(lastId),
+                Criteria.where("id").type(JsonSchemaObject.Type.OBJECT_ID));
+    }
+}
@@ -0,0 +1,189 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusQueryPlanAdvisor
+  version 1.0.0
+  @since 18.10.2026 - 21:55
+*/
+
+import com.mongodb.MongoException;
+import edu.ilkiv.lab5.model.Bus;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Diagnostic mode: explains the filter of every query method declared on BusRepository (derived
+// and @Query) once the app is up, and warns about (bus.index.advisor.mode=warn) or refuses to start
+// on (=fail) winning plans that scan the whole collection. Off by default.
+@Slf4j
+@Component
+@Profile("!reactive")
+public class BusQueryPlanAdvisor {
+
+    enum Mode { OFF, WARN, FAIL }
+
+    private static final String PROBE = "probe";
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\?(\\d+)");
+
+    private final MongoTemplate mongoTemplate;
+    private final QueryMapper queryMapper;
+
+    @Value("${bus.index.advisor.mode:off}")
+    private Mode mode = Mode.OFF;
+
+    public BusQueryPlanAdvisor(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    }
+
+    // runs after IndexConfiguration has ensured the declared indexes
+    @EventListener(ApplicationReadyEvent.class)
+    public void adviseOnStartup() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        Map<String, Boolean> explained = explainAll();
+        List<String> scans = explained.entrySet().stream()
+                .filter(Map.Entry::getValue)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (scans.isEmpty()) {
+            log.info("Explained {} BusRepository queries, none runs as a COLLSCAN", explained.size());
+            return;
+        }
+        if (mode == Mode.FAIL) {
+            throw new IllegalStateException("BusRepository queries without a usable index: " + scans);
+        }
+        scans.forEach(scan -> log.warn("BusRepository.{} runs as a COLLSCAN, add an index for it", scan));
+    }
+
+    // method -> whether its winning plan is a COLLSCAN; methods that cannot be explained are only logged
+    Map<String, Boolean> explainAll() {
+        Map<String, Boolean> explained = new LinkedHashMap<>();
+        String collection = mongoTemplate.getCollectionName(Bus.class);
+        probeFilters().forEach((method, filter) -> {
+            try {
+                Document explain = mongoTemplate.getDb().runCommand(new Document("explain",
+                        new Document("find", collection).append("filter", filter))
+                        .append("verbosity", "queryPlanner"));
+                explained.put(method, scansCollection(explain.get("queryPlanner", Document.class)));
+            } catch (MongoException | DataAccessException e) {
+                log.warn("Could not explain BusRepository.{} ({}): {}", method, filter.toJson(), e.getMessage());
+            }
+        });
+        return explained;
+    }
+
+    // one filter per query method, with a probe value bound to every parameter
+    Map<String, Document> probeFilters() {
+        Map<String, Document> filters = new LinkedHashMap<>();
+        for (Method method : BusRepository.class.getDeclaredMethods()) {
+            if (isQueryMethod(method)) {
+                filters.put(method.getName(), queryMapper.getMappedObject(filterOf(method),
+                        mongoTemplate.getConverter().getMappingContext().getPersistentEntity(Bus.class)));
+            }
+        }
+        return filters;
+    }
+
+    // true when a COLLSCAN stage appears anywhere in the plan (classic and SBE explain layouts)
+    static boolean scansCollection(Object plan) {
+        if (plan instanceof Document document) {
+            return "COLLSCAN".equals(document.get("stage"))
+                    || document.values().stream().anyMatch(BusQueryPlanAdvisor::scansCollection);
+        }
+        if (plan instanceof Collection<?> stages) {
+            return stages.stream().anyMatch(BusQueryPlanAdvisor::scansCollection);
+        }
+        return false;
+    }
+
+    // save and saveAll are only redeclared to route them to the custom implementation
+    private static boolean isQueryMethod(Method method) {
+        if (method.isDefault() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())) {
+            return false;
+        }
+        for (Class<?> inherited : List.of(MongoRepository.class, BusRepositoryCustom.class)) {
+            try {
+                inherited.getMethod(method.getName(), method.getParameterTypes());
+                return false;
+            } catch (NoSuchMethodException e) {
+                // declared only on BusRepository
+            }
+        }
+        return true;
+    }
+
+    private static Document filterOf(Method method) {
+        Query query = method.getAnnotation(Query.class);
+        if (query != null && !query.value().isEmpty()) {
+            Matcher placeholder = PLACEHOLDER.matcher(query.value());
+            StringBuilder json = new StringBuilder();
+            while (placeholder.find()) {
+                Class<?> type = method.getParameterTypes()[Integer.parseInt(placeholder.group(1))];
+                placeholder.appendReplacement(json, probeJson(type));
+            }
+            placeholder.appendTail(json);
+            return Document.parse(json.toString());
+        }
+        PartTree tree = new PartTree(method.getName(), Bus.class);
+        List<Criteria> alternatives = new ArrayList<>();
+        tree.forEach(orPart -> {
+            List<Criteria> parts = new ArrayList<>();
+            orPart.forEach(part -> parts.add(criteriaOf(part)));
+            alternatives.add(parts.size() == 1 ? parts.get(0) : new Criteria().andOperator(parts));
+        });
+        Criteria criteria = alternatives.size() == 1 ? alternatives.get(0) : new Criteria().orOperator(alternatives);
+        return criteria.getCriteriaObject();
+    }
+
+    // the value does not matter to the plan, only the operator does
+    private static Criteria criteriaOf(Part part) {
+        Criteria where = Criteria.where(part.getProperty().toDotPath());
+        return switch (part.getType()) {
+            case IN, CONTAINING -> where.in(List.of(PROBE));
+            case NOT_IN -> where.nin(List.of(PROBE));
+            case STARTING_WITH -> where.regex("^" + PROBE);
+            case GREATER_THAN, AFTER -> where.gt(PROBE);
+            case GREATER_THAN_EQUAL -> where.gte(PROBE);
+            case LESS_THAN, BEFORE -> where.lt(PROBE);
+            case LESS_THAN_EQUAL -> where.lte(PROBE);
+            case BETWEEN -> where.gt(PROBE).lt(PROBE);
+            case NEGATING_SIMPLE_PROPERTY -> where.ne(PROBE);
+            case EXISTS -> where.exists(true);
+            case IS_NULL -> where.is(null);
+            case IS_NOT_NULL -> where.ne(null);
+            default -> where.is(PROBE);
+        };
+    }
+
+    private static String probeJson(Class<?> type) {
+        return Matcher.quoteReplacement(Collection.class.isAssignableFrom(type) || type.isArray()
+                ? "['" + PROBE + "']"
+                : "'" + PROBE + "'");
+    }
+}
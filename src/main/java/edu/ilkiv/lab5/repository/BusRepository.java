@@ -10,9 +10,23 @@ package edu.ilkiv.lab5.repository;
 
 import edu.ilkiv.lab5.model.Bus;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface BusRepository extends MongoRepository<Bus, String> {
+public interface BusRepository extends MongoRepository<Bus, String>, BusRepositoryCustom {
     boolean existsByCode(String code);
+
+    @Query(value = "{ 'code': { $in: ?0 } }", fields = "{ 'code': 1 }")
+    List<Bus> findCodesIn(Collection<String> codes);
+
+    // both routed to the versioned implementation in BusRepositoryCustomImpl
+    @Override
+    <S extends Bus> S save(S bus);
+
+    @Override
+    <S extends Bus> List<S> saveAll(Iterable<S> buses);
 }
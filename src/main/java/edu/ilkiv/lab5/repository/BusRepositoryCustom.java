@@ -0,0 +1,71 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusRepositoryCustom
+  version 1.0.0
+  @since 18.10.2026 - 10:12
+*/
+
+import com.mongodb.bulk.BulkWriteError;
+import edu.ilkiv.lab5.model.Bus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface BusRepositoryCustom {
+
+    // keyset page: buses with _id greater than lastId (or from the start when lastId is null), ordered by _id
+    List<Bus> findPageAfter(String lastId, int limit);
+
+    // the projected reads only fetch the given fields (and the id) from Mongo, fields == null reads whole buses
+    List<Bus> findPageAfter(String lastId, int limit, Collection<String> fields);
+
+    // keyset page over the buses matching every non-null criterion (exact code, boardNumber prefix,
+    // full-text q on description)
+    List<Bus> searchPageAfter(String code, String boardNumberPrefix, String text, String lastId, int limit);
+
+    List<Bus> findAllProjected(Collection<String> fields);
+
+    Optional<Bus> findProjectedById(String id, Collection<String> fields);
+
+    // one findAndModify with remove, returns the removed bus or null when there was none
+    Bus findAndRemoveById(String id);
+
+    // one deleteMany over the buses matching every non-null criterion, returns the deleted count
+    long deleteMatching(Collection<String> ids, String codePrefix, LocalDateTime lastModifiedBefore);
+
+    // server-side cursor over the whole collection, the caller must close the stream
+    Stream<Bus> streamAll(int batchSize);
+
+    // the same cursor reading only the given fields (and the id)
+    Stream<Bus> streamProjected(Collection<String> fields, int batchSize);
+
+    // one unordered bulk insert of new buses (created fields are filled in when missing),
+    // returns the write errors (indexes refer to the given list)
+    List<BulkWriteError> insertUnordered(List<Bus> buses);
+
+    // one unordered bulk of upserts by id, each overwriting the bus fields without a version check,
+    // returns the write errors (indexes refer to the given list)
+    List<BulkWriteError> upsertUnordered(List<Bus> buses);
+
+    // one unordered bulk of insert-only upserts by id: stored buses are left as they are,
+    // returns how many were inserted
+    int insertMissing(List<Bus> buses);
+
+    // atomic $set of the given fields plus the last-modified audit fields and a version bump,
+    // returns the updated bus or null when it is missing or not at expectedVersion (null skips the check)
+    Bus updateFields(String id, Map<String, Object> fields, String modifiedBy, Long expectedVersion);
+
+    // versioned save: new buses start at version 0, existing ones are replaced only while the stored
+    // version still equals bus.version; with bus.version null the bus is written in one upsert that bumps
+    // the stored version (a bus inserted that way starts at version 1)
+    <S extends Bus> S save(S bus);
+
+    <S extends Bus> List<S> saveAll(Iterable<S> buses);
+}
@@ -0,0 +1,170 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusRepositoryCustomImpl
+  version 1.0.0
+  @since 18.10.2026 - 10:12
+*/
+
+import com.mongodb.bulk.BulkWriteError;
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
+import edu.ilkiv.lab5.model.Bus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.Streamable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class BusRepositoryCustomImpl implements BusRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    // absent in slices like @DataMongoTest, which leave the application configuration out
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+
+    @Override
+    public List<Bus> findPageAfter(String lastId, int limit) {
+        return findPageAfter(lastId, limit, null);
+    }
+
+    @Override
+    public List<Bus> findPageAfter(String lastId, int limit, Collection<String> fields) {
+        return mongoTemplate.find(BusQueries.pageAfter(lastId, limit, fields), Bus.class);
+    }
+
+    @Override
+    public List<Bus> searchPageAfter(String code, String boardNumberPrefix, String text, String lastId, int limit) {
+        return mongoTemplate.find(BusQueries.searchAfter(code, boardNumberPrefix, text, lastId, limit), Bus.class);
+    }
+
+    @Override
+    public Bus findAndRemoveById(String id) {
+        return mongoTemplate.findAndRemove(BusQueries.byId(id), Bus.class);
+    }
+
+    @Override
+    public long deleteMatching(Collection<String> ids, String codePrefix, LocalDateTime lastModifiedBefore) {
+        return mongoTemplate.remove(BusQueries.deleteMatching(ids, codePrefix, lastModifiedBefore), Bus.class)
+                .getDeletedCount();
+    }
+
+    @Override
+    public List<Bus> findAllProjected(Collection<String> fields) {
+        return mongoTemplate.find(BusQueries.withFields(new Query(), fields), Bus.class);
+    }
+
+    @Override
+    public Optional<Bus> findProjectedById(String id, Collection<String> fields) {
+        return Optional.ofNullable(mongoTemplate.findOne(BusQueries.withFields(BusQueries.byId(id), fields), Bus.class));
+    }
+
+    @Override
+    public Stream<Bus> streamAll(int batchSize) {
+        return mongoTemplate.stream(BusQueries.all(batchSize), Bus.class);
+    }
+
+    @Override
+    public Stream<Bus> streamProjected(Collection<String> fields, int batchSize) {
+        return mongoTemplate.stream(BusQueries.withFields(BusQueries.all(batchSize), fields), Bus.class);
+    }
+
+    @Override
+    public List<BulkWriteError> insertUnordered(List<Bus> buses) {
+        BusQueries.markCreated(buses, currentAuditor());
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Bus.class)
+                    .insert(buses)
+                    .execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors();
+        }
+    }
+
+    @Override
+    public List<BulkWriteError> upsertUnordered(List<Bus> buses) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Bus.class);
+        buses.forEach(bus -> bulk.upsert(BusQueries.byId(bus.getId()), BusQueries.overwrite(bus)));
+        try {
+            bulk.execute();
+            return List.of();
+        } catch (BulkOperationException e) {
+            return e.getErrors();
+        }
+    }
+
+    @Override
+    public int insertMissing(List<Bus> buses) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Bus.class);
+        buses.forEach(bus -> bulk.upsert(BusQueries.byId(bus.getId()), BusQueries.insertOnly(bus)));
+        return bulk.execute().getUpserts().size();
+    }
+
+    @Override
+    public Bus updateFields(String id, Map<String, Object> fields, String modifiedBy, Long expectedVersion) {
+        return mongoTemplate.findAndModify(
+                expectedVersion == null ? BusQueries.byId(id) : BusQueries.byVersion(id, expectedVersion),
+                BusQueries.patch(fields, modifiedBy),
+                FindAndModifyOptions.options().returnNew(true), Bus.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Bus> S save(S bus) {
+        if (bus.getId() == null) {
+            bus.setVersion(0L);
+            return mongoTemplate.insert(bus);
+        }
+        if (bus.getVersion() != null) {
+            return replace(bus);
+        }
+        // unversioned write (no If-Match): one upsert that bumps whatever version is stored, so it never
+        // conflicts; findAndModify skips the auditing callbacks, so the audit fields are set here
+        bus.setLastModifiedDate(LocalDateTime.now());
+        bus.setLastModifiedBy(currentAuditor());
+        return (S) mongoTemplate.findAndModify(BusQueries.byId(bus.getId()), BusQueries.overwrite(bus),
+                FindAndModifyOptions.options().upsert(true).returnNew(true), bus.getClass());
+    }
+
+    @Override
+    public <S extends Bus> List<S> saveAll(Iterable<S> buses) {
+        List<S> list = Streamable.of(buses).toList();
+        if (list.stream().allMatch(bus -> bus.getId() == null)) {
+            list.forEach(bus -> bus.setVersion(0L));
+            return new ArrayList<>(mongoTemplate.insertAll(list));
+        }
+        return list.stream().map(this::save).toList();
+    }
+
+    private String currentAuditor() {
+        AuditorAware<String> auditor = auditorAware.getIfAvailable();
+        return auditor == null ? null : auditor.getCurrentAuditor().orElse(null);
+    }
+
+    private <S extends Bus> S replace(S bus) {
+        long expected = bus.getVersion();
+        bus.setVersion(expected + 1);
+        S saved = mongoTemplate.findAndReplace(BusQueries.byVersion(bus.getId(), expected), bus,
+                FindAndReplaceOptions.options().returnNew());
+        if (saved == null) {
+            bus.setVersion(expected);
+            throw new BusVersionConflictException(bus.getId());
+        }
+        return saved;
+    }
+}
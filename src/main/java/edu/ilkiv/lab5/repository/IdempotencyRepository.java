@@ -0,0 +1,31 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class IdempotencyRepository
+  version 1.0.0
+  @since 19.10.2026 - 09:10
+*/
+
+import edu.ilkiv.lab5.model.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public interface IdempotencyRepository extends MongoRepository<IdempotencyRecord, String> {
+
+    // one conditional update, so of two retries racing for an abandoned claim only one gets 1 back
+    @Query("{ '_id': ?0, 'fingerprint': ?1, 'response': null, 'claimedAt': { $lt: ?2 } }")
+    @Update("{ '$set': { 'claimedAt': ?3 } }")
+    long takeOver(String id, String fingerprint, Date claimedBefore, Date claimedAt);
+
+    // one conditional delete of the claim made at claimedAt; a claim another retry has taken over since
+    // carries a later claimedAt and is left alone
+    @Query(value = "{ '_id': ?0, 'response': null, 'claimedAt': ?1 }", delete = true)
+    long release(String id, Date claimedAt);
+}
@@ -0,0 +1,33 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveBusRepository
+  version 1.0.0
+  @since 18.10.2026 - 16:30
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveBusRepository extends ReactiveMongoRepository<Bus, String>, ReactiveBusRepositoryCustom {
+    Mono<Boolean> existsByCode(String code);
+
+    @Query(value = "{ 'code': { $in: ?0 } }", fields = "{ 'code': 1 }")
+    Flux<Bus> findCodesIn(Collection<String> codes);
+
+    // both routed to the versioned implementation in ReactiveBusRepositoryCustomImpl
+    @Override
+    <S extends Bus> Mono<S> save(S bus);
+
+    @Override
+    <S extends Bus> Flux<S> saveAll(Iterable<S> buses);
+}
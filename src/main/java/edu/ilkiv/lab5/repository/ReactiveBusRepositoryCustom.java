@@ -0,0 +1,50 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveBusRepositoryCustom
+  version 1.0.0
+  @since 18.10.2026 - 16:30
+*/
+
+import com.mongodb.bulk.BulkWriteError;
+import edu.ilkiv.lab5.model.Bus;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// non-blocking counterpart of BusRepositoryCustom, same semantics
+public interface ReactiveBusRepositoryCustom {
+
+    Flux<Bus> findPageAfter(String lastId, int limit);
+
+    Flux<Bus> findPageAfter(String lastId, int limit, Collection<String> fields);
+
+    Flux<Bus> searchPageAfter(String code, String boardNumberPrefix, String text, String lastId, int limit);
+
+    // empty when there was no bus to remove
+    Mono<Bus> findAndRemoveById(String id);
+
+    Mono<Long> deleteMatching(Collection<String> ids, String codePrefix, LocalDateTime lastModifiedBefore);
+
+    Flux<Bus> findAllProjected(Collection<String> fields);
+
+    Mono<Bus> findProjectedById(String id, Collection<String> fields);
+
+    // ordered by _id, the cursor fetches batchSize documents at a time as downstream demand allows
+    Flux<Bus> streamAll(int batchSize);
+
+    Mono<List<BulkWriteError>> insertUnordered(List<Bus> buses);
+
+    // empty when the bus is missing or not at expectedVersion
+    Mono<Bus> updateFields(String id, Map<String, Object> fields, String modifiedBy, Long expectedVersion);
+
+    <S extends Bus> Mono<S> save(S bus);
+
+    <S extends Bus> Flux<S> saveAll(Iterable<S> buses);
+}
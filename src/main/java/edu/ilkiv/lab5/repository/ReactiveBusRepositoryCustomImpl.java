@@ -0,0 +1,151 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveBusRepositoryCustomImpl
+  version 1.0.0
+  @since 18.10.2026 - 16:30
+*/
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.DeleteResult;
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
+import edu.ilkiv.lab5.model.Bus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.Streamable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ReactiveBusRepositoryCustomImpl implements ReactiveBusRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+
+    @Override
+    public Flux<Bus> findPageAfter(String lastId, int limit) {
+        return findPageAfter(lastId, limit, null);
+    }
+
+    @Override
+    public Flux<Bus> findPageAfter(String lastId, int limit, Collection<String> fields) {
+        return mongoTemplate.find(BusQueries.pageAfter(lastId, limit, fields), Bus.class);
+    }
+
+    @Override
+    public Flux<Bus> searchPageAfter(String code, String boardNumberPrefix, String text, String lastId, int limit) {
+        return mongoTemplate.find(BusQueries.searchAfter(code, boardNumberPrefix, text, lastId, limit), Bus.class);
+    }
+
+    @Override
+    public Mono<Bus> findAndRemoveById(String id) {
+        return mongoTemplate.findAndRemove(BusQueries.byId(id), Bus.class);
+    }
+
+    @Override
+    public Mono<Long> deleteMatching(Collection<String> ids, String codePrefix, LocalDateTime lastModifiedBefore) {
+        return mongoTemplate.remove(BusQueries.deleteMatching(ids, codePrefix, lastModifiedBefore), Bus.class)
+                .map(DeleteResult::getDeletedCount);
+    }
+
+    @Override
+    public Flux<Bus> findAllProjected(Collection<String> fields) {
+        return mongoTemplate.find(BusQueries.withFields(new Query(), fields), Bus.class);
+    }
+
+    @Override
+    public Mono<Bus> findProjectedById(String id, Collection<String> fields) {
+        return mongoTemplate.findOne(BusQueries.withFields(BusQueries.byId(id), fields), Bus.class);
+    }
+
+    @Override
+    public Flux<Bus> streamAll(int batchSize) {
+        return mongoTemplate.find(BusQueries.all(batchSize), Bus.class);
+    }
+
+    @Override
+    public Mono<List<BulkWriteError>> insertUnordered(List<Bus> buses) {
+        // the reactive bulk operations hand back the raw driver exception
+        return Mono.defer(() -> {
+                    AuditorAware<String> auditor = auditorAware.getIfAvailable();
+                    BusQueries.markCreated(buses,
+                            auditor == null ? null : auditor.getCurrentAuditor().orElse(null));
+                    return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Bus.class)
+                            .insert(buses)
+                            .execute();
+                })
+                .map(result -> List.<BulkWriteError>of())
+                .onErrorResume(MongoBulkWriteException.class, e -> Mono.just(e.getWriteErrors()))
+                .onErrorResume(BulkOperationException.class, e -> Mono.just(e.getErrors()));
+    }
+
+    @Override
+    public Mono<Bus> updateFields(String id, Map<String, Object> fields, String modifiedBy, Long expectedVersion) {
+        return mongoTemplate.findAndModify(
+                expectedVersion == null ? BusQueries.byId(id) : BusQueries.byVersion(id, expectedVersion),
+                BusQueries.patch(fields, modifiedBy),
+                FindAndModifyOptions.options().returnNew(true), Bus.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S extends Bus> Mono<S> save(S bus) {
+        if (bus.getId() == null) {
+            return insert(bus);
+        }
+        if (bus.getVersion() != null) {
+            return replace(bus);
+        }
+        // as in BusRepositoryCustomImpl: one upsert that bumps the stored version, audit fields set here
+        return Mono.defer(() -> {
+            AuditorAware<String> auditor = auditorAware.getIfAvailable();
+            bus.setLastModifiedDate(LocalDateTime.now());
+            bus.setLastModifiedBy(auditor == null ? null : auditor.getCurrentAuditor().orElse(null));
+            return mongoTemplate.findAndModify(BusQueries.byId(bus.getId()), BusQueries.overwrite(bus),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), (Class<S>) bus.getClass());
+        });
+    }
+
+    @Override
+    public <S extends Bus> Flux<S> saveAll(Iterable<S> buses) {
+        List<S> list = Streamable.of(buses).toList();
+        if (list.stream().allMatch(bus -> bus.getId() == null)) {
+            list.forEach(bus -> bus.setVersion(0L));
+            return mongoTemplate.insertAll(list);
+        }
+        return Flux.fromIterable(list).concatMap(this::save);
+    }
+
+    private <S extends Bus> Mono<S> insert(S bus) {
+        bus.setVersion(0L);
+        return mongoTemplate.insert(bus);
+    }
+
+    private <S extends Bus> Mono<S> replace(S bus) {
+        return Mono.defer(() -> {
+            long expected = bus.getVersion();
+            bus.setVersion(expected + 1);
+            return mongoTemplate.findAndReplace(BusQueries.byVersion(bus.getId(), expected), bus,
+                            FindAndReplaceOptions.options().returnNew())
+                    .switchIfEmpty(Mono.defer(() -> {
+                        bus.setVersion(expected);
+                        return Mono.error(new BusVersionConflictException(bus.getId()));
+                    }));
+        });
+    }
+}
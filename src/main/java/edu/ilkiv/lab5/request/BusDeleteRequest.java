@@ -0,0 +1,16 @@
+package edu.ilkiv.lab5.request;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusDeleteRequest
+ * version 1.0.0
+ * @since 18.10.2026 - 23:50
+ */
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// every non-null criterion is and-ed, at least one is required
+public record BusDeleteRequest(List<String> ids, String codePrefix, LocalDateTime lastModifiedBefore) {
+}
@@ -0,0 +1,11 @@
+package edu.ilkiv.lab5.request;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusPatchRequest
+ * version 1.0.0
+ * @since 18.10.2026 - 14:10
+ */
+public record BusPatchRequest(String boardNumber, String code, String description) {
+}
@@ -0,0 +1,17 @@
+package edu.ilkiv.lab5.response;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusBatch
+ * version 1.0.0
+ * @since 18.10.2026 - 23:30
+ */
+
+import edu.ilkiv.lab5.model.Bus;
+
+import java.util.List;
+
+// items follow the order of the requested ids, missing lists the ids that matched no bus
+public record BusBatch(List<Bus> items, List<String> missing) {
+}
@@ -0,0 +1,26 @@
+package edu.ilkiv.lab5.response;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusBulkResult
+ * version 1.0.0
+ * @since 18.10.2026 - 11:05
+ */
+
+import edu.ilkiv.lab5.model.Bus;
+
+public record BusBulkResult(int index, String code, BusBulkStatus status, Bus bus, String error) {
+
+    public static BusBulkResult created(int index, Bus bus) {
+        return new BusBulkResult(index, bus.getCode(), BusBulkStatus.CREATED, bus, null);
+    }
+
+    public static BusBulkResult duplicate(int index, String code) {
+        return new BusBulkResult(index, code, BusBulkStatus.DUPLICATE, null, null);
+    }
+
+    public static BusBulkResult failed(int index, String code, String error) {
+        return new BusBulkResult(index, code, BusBulkStatus.FAILED, null, error);
+    }
+}
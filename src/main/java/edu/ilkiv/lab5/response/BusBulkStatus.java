@@ -0,0 +1,15 @@
+package edu.ilkiv.lab5.response;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusBulkStatus
+ * version 1.0.0
+ * @since 18.10.2026 - 11:05
+ */
+
+public enum BusBulkStatus {
+    CREATED,
+    DUPLICATE,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package edu.ilkiv.lab5.response;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusDeleteResult
+ * version 1.0.0
+ * @since 18.10.2026 - 23:50
+ */
+public record BusDeleteResult(long deleted) {
+}
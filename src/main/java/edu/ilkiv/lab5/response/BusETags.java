@@ -0,0 +1,69 @@
+package edu.ilkiv.lab5.response;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusETags
+ * version 1.0.0
+ * @since 18.10.2026 - 16:15
+ */
+
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
+import edu.ilkiv.lab5.model.Bus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public final class BusETags {
+
+    private BusETags() {
+    }
+
+    // a parked bus (see BusWriteBehindService) has no version yet, so it goes out without an ETag
+    // instead of one that If-Match could never meet
+    public static ResponseEntity<Bus> withETag(Bus bus) {
+        if (bus == null) {
+            return ResponseEntity.ok().build();
+        }
+        if (bus.isParked()) {
+            return ResponseEntity.ok(bus);
+        }
+        return ResponseEntity.ok().eTag(etagOf(bus)).body(bus);
+    }
+
+    // "<version>-<digest of id and lastModifiedDate>": the version alone repeats across buses (each starts at 0)
+    // and across a delete and re-create, so If-None-Match could get a 304 for other content; If-Match only
+    // reads the version (see versionOf). Documents written before versioning count as version 0, which
+    // BusQueries.byVersion matches; their first write stores version 1
+    public static String etagOf(Bus bus) {
+        long version = bus.getVersion() == null ? 0 : bus.getVersion();
+        // Mongo keeps milliseconds, so a bus just written and the same bus read back get the same tag
+        LocalDateTime modified = bus.getLastModifiedDate() == null ? null
+                : bus.getLastModifiedDate().truncatedTo(ChronoUnit.MILLIS);
+        String source = bus.getId() + "|" + modified;
+        return version + "-" + DigestUtils.md5DigestAsHex(source.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    }
+
+    // the version an If-Match header asks for, null when there is no precondition
+    public static Long versionOf(String ifMatch, String id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        // a bare version is accepted as well
+        int dash = tag.indexOf('-');
+        try {
+            return Long.parseLong(dash < 0 ? tag : tag.substring(0, dash));
+        } catch (NumberFormatException e) {
+            // not one of our version tags, so it cannot match
+            throw new BusVersionConflictException(id);
+        }
+    }
+}
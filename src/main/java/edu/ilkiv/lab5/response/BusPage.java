@@ -0,0 +1,16 @@
+package edu.ilkiv.lab5.response;
+
+/**
+ * @author Bodya
+ * @project lab5
+ * @class BusPage
+ * version 1.0.0
+ * @since 18.10.2026 - 10:20
+ */
+
+import edu.ilkiv.lab5.model.Bus;
+
+import java.util.List;
+
+public record BusPage(List<Bus> items, String nextCursor, boolean hasMore) {
+}
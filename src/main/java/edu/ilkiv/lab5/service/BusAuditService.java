@@ -0,0 +1,182 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusAuditService
+  version 1.0.0
+  @since 19.10.2026 - 10:45
+*/
+
+import edu.ilkiv.lab5.model.BusAuditAction;
+import edu.ilkiv.lab5.model.BusAuditEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Audit trail for bus writes, kept off the write path: record() only offers the entry to a bounded
+// in-memory queue, a single background writer inserts what it finds there into busAudit in batches.
+//
+// Flush policy: a batch is written once it holds bus.audit.batch-size entries or bus.audit.flush-interval
+// after its first entry, whichever comes first; shutdown drains the queue for up to bus.audit.shutdown-timeout.
+// Durability is at most once: queued entries are lost if the process dies, a full queue drops new entries
+// (bus.audit.entries{outcome=dropped}) instead of slowing writes down, and a failed insert drops its batch
+// (outcome=failed). Everything written is counted as outcome=written.
+//
+// Shared by both stacks: the batches go through the blocking template, or under the "reactive" profile
+// (which has no blocking client) through the reactive one, waited on here on the writer thread.
+@Slf4j
+@Service
+public class BusAuditService {
+
+    private final Consumer<List<BusAuditEntry>> insert;
+    private final BlockingQueue<BusAuditEntry> queue;
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    @Value("${bus.audit.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${bus.audit.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${bus.audit.flush-interval:1s}")
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    @Value("${bus.audit.shutdown-timeout:5s}")
+    private Duration shutdownTimeout = Duration.ofSeconds(5);
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public BusAuditService(ObjectProvider<MongoTemplate> mongoTemplate,
+                           ObjectProvider<ReactiveMongoTemplate> reactiveMongoTemplate, MeterRegistry meterRegistry,
+                           @Value("${bus.audit.queue-capacity:10000}") int queueCapacity) {
+        MongoTemplate blocking = mongoTemplate.getIfAvailable();
+        this.insert = blocking != null ? blocking::insertAll : reactiveInsert(reactiveMongoTemplate.getObject());
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.written = entries(meterRegistry, "written");
+        this.dropped = entries(meterRegistry, "dropped");
+        this.failed = entries(meterRegistry, "failed");
+        this.flushTimer = Timer.builder("bus.audit.flush")
+                .description("Batched inserts into busAudit")
+                .register(meterRegistry);
+        meterRegistry.gauge("bus.audit.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "bus-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer != null) {
+            // the writer notices within one flush interval, the interrupt is only for a writer that is stuck
+            running = false;
+            writer.join(shutdownTimeout.toMillis());
+            writer.interrupt();
+        }
+        // whatever the writer did not get to is flushed here, in batches
+        List<BusAuditEntry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+    }
+
+    // never blocks: the entry is dropped (and counted) when the queue is full
+    public void record(BusAuditAction action, String busId, String auditor,
+                       BusAuditEntry.State before, BusAuditEntry.State after, String note) {
+        if (!enabled) {
+            return;
+        }
+        BusAuditEntry entry = new BusAuditEntry(null, busId, action, auditor, LocalDateTime.now(), before, after, note);
+        if (!queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        List<BusAuditEntry> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                BusAuditEntry first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch, System.nanoTime() + flushInterval.toNanos());
+                flush(batch);
+            }
+        } catch (InterruptedException e) {
+            // stop() takes over the entries still queued
+            flush(batch);
+        }
+    }
+
+    // tops the batch up until it is full or the deadline passes
+    private void fill(List<BusAuditEntry> batch, long deadline) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long left = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || left <= 0) {
+                return;
+            }
+            BusAuditEntry next = queue.poll(left, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<BusAuditEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            flushTimer.record(() -> insert.accept(batch));
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.warn("Dropped {} audit entries, the insert into busAudit failed: {}", batch.size(), e.getMessage());
+        }
+        batch.clear();
+    }
+
+    private static Consumer<List<BusAuditEntry>> reactiveInsert(ReactiveMongoTemplate reactiveMongoTemplate) {
+        return batch -> reactiveMongoTemplate.insertAll(batch).then().block();
+    }
+
+    private static Counter entries(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("bus.audit.entries")
+                .description("Audit entries by what became of them")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,57 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusBatches
+  version 1.0.0
+  @since 18.10.2026 - 23:30
+*/
+
+import edu.ilkiv.lab5.exception.BatchTooLargeException;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.response.BusBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+// multi-get: the requested ids go to Mongo as one $in, the answer is put back in request order
+final class BusBatches {
+
+    private BusBatches() {
+    }
+
+    // null ids are dropped and repeated ones are looked up (and returned) once
+    static List<String> distinctIds(List<String> ids, int maxSize) {
+        List<String> distinct = ids == null ? List.of() : ids.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new))
+                .stream()
+                .toList();
+        if (distinct.size() > maxSize) {
+            throw new BatchTooLargeException(distinct.size(), maxSize);
+        }
+        return distinct;
+    }
+
+    static BusBatch toBatch(List<String> ids, Iterable<Bus> found) {
+        Map<String, Bus> byId = new HashMap<>();
+        found.forEach(bus -> byId.put(bus.getId(), bus));
+        List<Bus> items = new ArrayList<>(byId.size());
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            Bus bus = byId.get(id);
+            if (bus == null) {
+                missing.add(id);
+            } else {
+                items.add(bus);
+            }
+        }
+        return new BusBatch(items, missing);
+    }
+}
@@ -0,0 +1,71 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusBulkPlan
+  version 1.0.0
+  @since 18.10.2026 - 16:10
+*/
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.response.BusBulkResult;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// one bulk create: codes already taken (or repeated in the batch) are duplicates up front,
+// the rest is inserted in one go and its write errors are folded back into the per-item results
+class BusBulkPlan {
+
+    private final List<BusCreateRequest> requests;
+    private final List<BusBulkResult> results;
+    private final List<Bus> toInsert = new ArrayList<>();
+    private final List<Integer> positions = new ArrayList<>();
+
+    BusBulkPlan(List<BusCreateRequest> requests, Collection<String> takenCodes,
+                Function<BusCreateRequest, Bus> mapper) {
+        this.requests = requests;
+        this.results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Set<String> seen = new HashSet<>(takenCodes);
+        for (int i = 0; i < requests.size(); i++) {
+            BusCreateRequest request = requests.get(i);
+            // the code index is sparse, so any number of buses may go without a code
+            if (request.code() != null && !seen.add(request.code())) {
+                results.set(i, BusBulkResult.duplicate(i, request.code()));
+                continue;
+            }
+            Bus item = mapper.apply(request);
+            // ids are assigned up front because bulk inserts do not write generated ids back
+            item.setId(new ObjectId().toHexString());
+            item.setVersion(0L);
+            toInsert.add(item);
+            positions.add(i);
+            results.set(i, BusBulkResult.created(i, item));
+        }
+    }
+
+    List<Bus> toInsert() {
+        return toInsert;
+    }
+
+    List<BusBulkResult> complete(List<BulkWriteError> errors) {
+        for (BulkWriteError error : errors) {
+            int i = positions.get(error.getIndex());
+            String code = requests.get(i).code();
+            results.set(i, ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                    ? BusBulkResult.duplicate(i, code)
+                    : BusBulkResult.failed(i, code, error.getMessage()));
+        }
+        return results;
+    }
+}
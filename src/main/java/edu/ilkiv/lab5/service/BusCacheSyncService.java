@@ -0,0 +1,182 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusCacheSyncService
+  version 1.0.0
+  @since 18.10.2026 - 13:05
+*/
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import edu.ilkiv.lab5.model.Bus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Keeps the local "buses" cache in line with writes made by other nodes.
+// Change streams need a replica set, so this is off unless bus.cache.change-stream.enabled=true.
+// The stream holds its thread for as long as it runs, so it gets a thread of its own instead of one
+// of the application task executor; a resubscribe after an error is scheduled on that same thread.
+@Slf4j
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "bus.cache.change-stream.enabled", havingValue = "true")
+public class BusCacheSyncService {
+
+    private static final String TOKEN_COLLECTION = "busChangeStreamTokens";
+    // InvalidResumeToken, ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final Set<Integer> UNRESUMABLE_CODES = Set.of(260, 280, 286);
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+
+    @Value("${bus.cache.change-stream.node-id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${bus.cache.change-stream.token-save-interval:1s}")
+    private Duration tokenSaveInterval = Duration.ofSeconds(1);
+
+    @Value("${bus.cache.change-stream.retry-delay:5s}")
+    private Duration retryDelay = Duration.ofSeconds(5);
+
+    private ScheduledExecutorService listenerThread;
+    private MessageListenerContainer container;
+    private volatile BsonValue lastToken;
+    private long lastSavedAt;
+
+    @PostConstruct
+    void start() {
+        listenerThread = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "bus-cache-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        container = new DefaultMessageListenerContainer(mongoTemplate, listenerThread);
+        container.start();
+        lastToken = loadToken();
+        subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        container.stop();
+        listenerThread.shutdownNow();
+        saveToken();
+    }
+
+    private void subscribe() {
+        ChangeStreamRequest.ChangeStreamRequestBuilder<Document> request = ChangeStreamRequest.builder(this::onChange)
+                .collection(mongoTemplate.getCollectionName(Bus.class));
+        if (lastToken != null) {
+            request.resumeAfter(lastToken);
+        }
+        container.register(request.build(), Document.class, this::onError);
+    }
+
+    private void onChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        ChangeStreamDocument<Document> event = message.getRaw();
+        BsonDocument documentKey = event.getDocumentKey();
+        if (documentKey != null) {
+            busCache().evict(toId(documentKey.get("_id")));
+        } else {
+            // drop / rename / invalidate carry no document key
+            busCache().clear();
+        }
+        lastToken = event.getResumeToken();
+        if (System.nanoTime() - lastSavedAt >= tokenSaveInterval.toNanos()) {
+            saveToken();
+            lastSavedAt = System.nanoTime();
+        }
+    }
+
+    private void onError(Throwable error) {
+        // events may have been missed while the stream was down
+        busCache().clear();
+        if (!container.isRunning()) {
+            return;
+        }
+        if (isUnresumable(error)) {
+            log.warn("Change stream for node {} cannot be resumed, starting from now", nodeId, error);
+            lastToken = null;
+        } else {
+            log.warn("Change stream for node {} failed, retrying in {}", nodeId, retryDelay, error);
+        }
+        // runs once the failed subscription has given the thread back
+        listenerThread.schedule(this::resubscribe, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void resubscribe() {
+        if (container.isRunning()) {
+            subscribe();
+        }
+    }
+
+    private boolean isUnresumable(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause()) {
+            if (e instanceof MongoException mongoError && UNRESUMABLE_CODES.contains(mongoError.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BsonValue loadToken() {
+        BsonDocument saved = tokens().withDocumentClass(BsonDocument.class)
+                .find(Filters.eq("_id", nodeId))
+                .first();
+        return saved == null ? null : saved.get("token");
+    }
+
+    private void saveToken() {
+        BsonValue token = lastToken;
+        if (token == null) {
+            return;
+        }
+        tokens().replaceOne(Filters.eq("_id", nodeId),
+                new Document("_id", nodeId).append("token", token).append("savedAt", new Date()),
+                new ReplaceOptions().upsert(true));
+    }
+
+    private MongoCollection<Document> tokens() {
+        return mongoTemplate.getCollection(TOKEN_COLLECTION);
+    }
+
+    private Cache busCache() {
+        return cacheManager.getCache("buses");
+    }
+
+    private String toId(BsonValue id) {
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+}
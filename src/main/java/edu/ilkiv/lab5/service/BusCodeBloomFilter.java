@@ -0,0 +1,74 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusCodeBloomFilter
+  version 1.0.0
+  @since 19.10.2026 - 15:00
+*/
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a plain Bloom filter over strings: no false negatives, about fpp false positives once it holds
+// expectedCodes codes; puts and lookups are lock-free
+final class BusCodeBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    private BusCodeBloomFilter(long bits, int hashes) {
+        this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+
+    static BusCodeBloomFilter create(long expectedCodes, double fpp) {
+        long n = Math.max(1, expectedCodes);
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BusCodeBloomFilter(bits, hashes);
+    }
+
+    void put(String code) {
+        long h1 = hash(code, 0);
+        long h2 = hash(code, 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String code) {
+        long h1 = hash(code, 0);
+        long h2 = hash(code, 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars, finished with the murmur3 fmix64 so nearby codes spread over all bits
+    private static long hash(String code, long seed) {
+        long h = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < code.length(); i++) {
+            h ^= code.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
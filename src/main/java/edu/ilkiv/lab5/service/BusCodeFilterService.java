@@ -0,0 +1,174 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusCodeFilterService
+  version 1.0.0
+  @since 19.10.2026 - 15:20
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.repository.BusRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Negative cache for bus codes: a Bloom filter over every code, so lookups of codes that were never stored
+// skip Mongo and only possible positives are checked there. Loaded in the background once the application
+// is ready (until then every code is a possible positive), fed by every write that stores a code. Bits cannot be cleared,
+// so deleted or replaced codes stay possible positives; when the observed false-positive rate climbs over
+// bus.code-filter.rebuild-above the filter is rebuilt from Mongo in the background.
+@Slf4j
+@Service
+@Profile("!reactive")
+public class BusCodeFilterService {
+
+    private final BusRepository busRepository;
+    private final Counter negatives;
+    private final Counter truePositives;
+    private final Counter falsePositives;
+    // since the last (re)build, for the rebuild decision
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong wrong = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @Value("${bus.code-filter.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${bus.code-filter.expected-codes:100000}")
+    private long expectedCodes = 100000;
+
+    @Value("${bus.code-filter.fpp:0.01}")
+    private double fpp = 0.01;
+
+    @Value("${bus.code-filter.rebuild-above:0.05}")
+    private double rebuildAbove = 0.05;
+
+    @Value("${bus.code-filter.rebuild-min-checks:1000}")
+    private long rebuildMinChecks = 1000;
+
+    @Value("${bus.code-filter.batch-size:1000}")
+    private int batchSize = 1000;
+
+    private volatile BusCodeBloomFilter filter;
+    // the filter being rebuilt also gets the codes written meanwhile
+    private volatile BusCodeBloomFilter next;
+
+    public BusCodeFilterService(BusRepository busRepository, MeterRegistry meterRegistry) {
+        this.busRepository = busRepository;
+        this.negatives = checks(meterRegistry, "negative");
+        this.truePositives = checks(meterRegistry, "true-positive");
+        this.falsePositives = checks(meterRegistry, "false-positive");
+    }
+
+    // reading every code would hold up startup, so the filter is loaded off the startup thread
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        if (enabled && rebuilding.compareAndSet(false, true)) {
+            startRebuild("bus-code-filter-load");
+        }
+    }
+
+    public void load() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // false only when the code was certainly never stored
+    public boolean mightExist(String code) {
+        BusCodeBloomFilter current = filter;
+        if (current == null || code == null || current.mightContain(code)) {
+            return true;
+        }
+        negatives.increment();
+        checked.incrementAndGet();
+        return false;
+    }
+
+    // the Mongo answer for codes mightExist let through, feeds the false-positive counters
+    public void confirmed(Collection<String> possible, Collection<String> found) {
+        if (filter == null || possible.isEmpty()) {
+            return;
+        }
+        long misses = possible.stream().filter(code -> !found.contains(code)).count();
+        truePositives.increment(possible.size() - misses);
+        falsePositives.increment(misses);
+        long total = checked.addAndGet(possible.size());
+        long falses = wrong.addAndGet(misses);
+        if (total >= rebuildMinChecks && (double) falses / total > rebuildAbove
+                && rebuilding.compareAndSet(false, true)) {
+            log.info("Code filter false-positive rate {}/{} is over {}, rebuilding it", falses, total, rebuildAbove);
+            startRebuild("bus-code-filter-rebuild");
+        }
+    }
+
+    public void add(String code) {
+        if (code == null) {
+            return;
+        }
+        BusCodeBloomFilter current = filter;
+        if (current != null) {
+            current.put(code);
+        }
+        BusCodeBloomFilter building = next;
+        if (building != null) {
+            building.put(code);
+        }
+    }
+
+    private void startRebuild(String name) {
+        Thread rebuilder = new Thread(this::rebuild, name);
+        rebuilder.setDaemon(true);
+        rebuilder.start();
+    }
+
+    private void rebuild() {
+        rebuilding.set(true);
+        try {
+            // published before the read, so codes written while it runs are not missed
+            BusCodeBloomFilter built = BusCodeBloomFilter.create(Math.max(expectedCodes, 2 * busRepository.count()), fpp);
+            next = built;
+            // only the codes, read through a cursor batchSize at a time instead of into one list
+            long loaded = 0;
+            try (Stream<Bus> buses = busRepository.streamProjected(List.of("code"), batchSize)) {
+                Iterator<String> codes = buses.map(Bus::getCode).filter(Objects::nonNull).iterator();
+                while (codes.hasNext()) {
+                    built.put(codes.next());
+                    loaded++;
+                }
+            }
+            filter = built;
+            next = null;
+            checked.set(0);
+            wrong.set(0);
+            log.info("Code filter loaded with {} codes", loaded);
+        } catch (RuntimeException e) {
+            next = null;
+            log.warn("Could not load the code filter, codes are looked up in Mongo: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("bus.code.filter.checks")
+                .description("Code lookups answered by the Bloom filter (negative) or by Mongo")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
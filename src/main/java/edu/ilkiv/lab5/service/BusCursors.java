@@ -0,0 +1,51 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusCursors
+  version 1.0.0
+  @since 18.10.2026 - 16:10
+*/
+
+import edu.ilkiv.lab5.exception.InvalidCursorException;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.response.BusPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// keyset page cursors: the opaque cursor is the url-safe base64 of the last id on the page
+final class BusCursors {
+
+    private BusCursors() {
+    }
+
+    static int pageSize(Integer requested, int defaultSize, int maxSize) {
+        return requested == null || requested < 1 ? defaultSize : Math.min(requested, maxSize);
+    }
+
+    // found holds up to pageSize + 1 buses, the extra one only tells that another page exists
+    static BusPage toPage(List<Bus> found, int pageSize) {
+        boolean hasMore = found.size() > pageSize;
+        List<Bus> items = hasMore ? found.subList(0, pageSize) : found;
+        String nextCursor = hasMore ? encode(items.get(items.size() - 1).getId()) : null;
+        return new BusPage(items, nextCursor, hasMore);
+    }
+
+    static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusFields
+  version 1.0.0
+  @since 18.10.2026 - 20:40
+*/
+
+import edu.ilkiv.lab5.exception.InvalidFieldsException;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// sparse fieldsets: ?fields=code,boardNumber becomes a Mongo projection, the id is always returned
+final class BusFields {
+
+    private static final Set<String> KNOWN = Set.of("id", "boardNumber", "code", "description",
+            "createdDate", "createdBy", "lastModifiedDate", "lastModifiedBy", "version");
+
+    private BusFields() {
+    }
+
+    // null means the whole bus
+    static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!KNOWN.contains(name)) {
+                throw new InvalidFieldsException(name);
+            }
+            parsed.add(name);
+        }
+        return parsed.isEmpty() ? null : parsed;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusRequests
+  version 1.0.0
+  @since 18.10.2026 - 16:10
+*/
+
+import edu.ilkiv.lab5.exception.EmptyDeleteFilterException;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusDeleteRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class BusRequests {
+
+    private BusRequests() {
+    }
+
+    // shared by both services and BusMappingBenchmark
+    static Bus toBus(BusCreateRequest request) {
+        return new Bus(request.boardNumber(), request.code(), request.description());
+    }
+
+    // only the supplied (non-null) fields of a patch are written
+    static Map<String, Object> patchFields(BusPatchRequest request) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (request.boardNumber() != null) {
+            fields.put("boardNumber", request.boardNumber());
+        }
+        if (request.code() != null) {
+            fields.put("code", request.code());
+        }
+        if (request.description() != null) {
+            fields.put("description", request.description());
+        }
+        return fields;
+    }
+
+    // a bulk delete without any criterion would empty the collection, so it is refused
+    static BusDeleteRequest requireDeleteCriteria(BusDeleteRequest request) {
+        if (request == null || (request.ids() == null && BusSearch.criterion(request.codePrefix()) == null
+                && request.lastModifiedBefore() == null)) {
+            throw new EmptyDeleteFilterException();
+        }
+        return request;
+    }
+
+    // the audit note of a bulk delete: a filter does not say which buses it removed, only how many
+    static String describeDelete(BusDeleteRequest request, long deleted) {
+        return "deleted " + deleted + " matching " + request;
+    }
+}
@@ -0,0 +1,21 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusSearch
+  version 1.0.0
+  @since 18.10.2026 - 21:15
+*/
+
+// search parameters shared by the blocking and the reactive services
+final class BusSearch {
+
+    private BusSearch() {
+    }
+
+    // blank parameters (e.g. ?code=) do not constrain the search
+    static String criterion(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
@@ -0,0 +1,71 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusSeedService
+  version 1.0.0
+  @since 19.10.2026 - 16:40
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.repository.BusRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// sample buses for the "seed" profile, written once the application is ready on the application task
+// executor, so startup never waits for Mongo; insert-only, so a restart keeps the edits made to them
+@Slf4j
+@Service
+@Profile("seed & !reactive")
+public class BusSeedService {
+
+    private final BusRepository busRepository;
+    private final BusCodeFilterService busCodeFilter;
+    private final TaskExecutor taskExecutor;
+    private final Timer seedTimer;
+    private final List<Bus> seeds = List.of(
+            new Bus("1", "1234 CE", "000001", "description1"),
+            new Bus("2", "4323 AE", "000002", "description3"),
+            new Bus("3", "9423 MO", "000003", "description3"));
+
+    public BusSeedService(BusRepository busRepository, BusCodeFilterService busCodeFilter,
+                          @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor, MeterRegistry meterRegistry) {
+        this.busRepository = busRepository;
+        this.busCodeFilter = busCodeFilter;
+        this.taskExecutor = taskExecutor;
+        this.seedTimer = Timer.builder("bus.seed")
+                .description("Insert-only bulk of the sample buses")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedInBackground() {
+        taskExecutor.execute(this::seed);
+    }
+
+    void seed() {
+        try {
+            long start = System.nanoTime();
+            int inserted = seedTimer.record(() -> busRepository.insertMissing(seeds));
+            seeds.forEach(bus -> busCodeFilter.add(bus.getCode()));
+            log.info("Seeded {} of {} sample buses in {} ms", inserted, seeds.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not seed the sample buses: {}", e.getMessage());
+        }
+    }
+
+    List<Bus> seeds() {
+        return seeds;
+    }
+}
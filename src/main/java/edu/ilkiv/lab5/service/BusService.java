@@ -8,80 +8,312 @@ package edu.ilkiv.lab5.service;
   @since 18.04.2025 - 16:40
 */
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
 import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.model.BusAuditAction;
+import edu.ilkiv.lab5.model.BusAuditEntry;
 import edu.ilkiv.lab5.repository.BusRepository;
 import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusDeleteRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
 import edu.ilkiv.lab5.request.BusUpdateRequest;
-import jakarta.annotation.PostConstruct;
+import edu.ilkiv.lab5.response.BusBatch;
+import edu.ilkiv.lab5.response.BusBulkResult;
+import edu.ilkiv.lab5.response.BusDeleteResult;
+import edu.ilkiv.lab5.response.BusPage;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.AuditorAware;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
+@CacheConfig(cacheNames = "buses")
+// one bus.service timer per public method (tags class, method, exception)
+@Timed("bus.service")
 public class BusService {
 
     private final BusRepository busRepository;
+    private final AuditorAware<String> auditorAware;
+    private final BusAuditService busAuditService;
+    private final BusWriteBehindService busWriteBehind;
+    private final BusCodeFilterService busCodeFilter;
+    private final ObjectMapper objectMapper;
 
-    List<Bus> buses = new ArrayList<>();
-    {
-        buses.add(new Bus("1", "1234 CE", "000001","description1"));
-        buses.add(new Bus("2", "4323 AE", "000002","description3"));
-        buses.add(new Bus("3", "9423 MO", "000003","description3"));
-    }
+    @Value("${bus.page.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${bus.page.max-size:200}")
+    private int maxPageSize = 200;
+
+    @Value("${bus.batch.max-size:500}")
+    private int maxBatchSize = 500;
+
+    @Value("${bus.export.batch-size:500}")
+    private int exportBatchSize = 500;
+
+    // the sample buses are written by BusSeedService under the "seed" profile
 
-    @PostConstruct
-    void init() {
-        busRepository.saveAll(buses);
-    }
     //  CRUD   - create read update delete
 
+    // whole-bus reads see updates still parked by the write-behind buffer, projected ones and search do not
     public List<Bus> getAll() {
-        return busRepository.findAll();
+        return busWriteBehind.overlay(busRepository.findAll());
+    }
+
+    public List<Bus> getAll(String fields) {
+        Set<String> projection = BusFields.parse(fields);
+        return projection == null ? getAll() : busRepository.findAllProjected(projection);
+    }
+
+    // keyset pagination on _id: one extra document is fetched to compute hasMore without a count
+    public BusPage getPage(String cursor, Integer size) {
+        int pageSize = BusCursors.pageSize(size, defaultPageSize, maxPageSize);
+        return BusCursors.toPage(
+                busWriteBehind.overlay(busRepository.findPageAfter(BusCursors.decode(cursor), pageSize + 1)), pageSize);
+    }
+
+    public BusPage getPage(String cursor, Integer size, String fields) {
+        Set<String> projection = BusFields.parse(fields);
+        if (projection == null) {
+            return getPage(cursor, size);
+        }
+        int pageSize = BusCursors.pageSize(size, defaultPageSize, maxPageSize);
+        return BusCursors.toPage(
+                busRepository.findPageAfter(BusCursors.decode(cursor), pageSize + 1, projection), pageSize);
+    }
+
+    // blank criteria are ignored, paged like getPage (the cursor is the id of the last bus returned)
+    public BusPage search(String code, String boardNumber, String q, String cursor, Integer size) {
+        int pageSize = BusCursors.pageSize(size, defaultPageSize, maxPageSize);
+        return BusCursors.toPage(busRepository.searchPageAfter(BusSearch.criterion(code), BusSearch.criterion(boardNumber),
+                BusSearch.criterion(q), BusCursors.decode(cursor), pageSize + 1), pageSize);
+    }
+
+    // lazily backed by a Mongo cursor, must be closed by the caller
+    public Stream<Bus> streamAll() {
+        return busRepository.streamAll(exportBatchSize);
+    }
+
+    // every bus as newline-delimited json, flushed once per cursor batch
+    public void export(OutputStream out) throws IOException {
+        try (Stream<Bus> buses = streamAll()) {
+            Iterator<Bus> iterator = buses.iterator();
+            int inBatch = 0;
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                if (++inBatch == exportBatchSize) {
+                    out.flush();
+                    inBatch = 0;
+                }
+            }
+            out.flush();
+        }
     }
 
+    // read-through, size and ttl are set by spring.cache.caffeine.spec
+    // a parked update (see update(Bus, Long)) is answered from the write-behind buffer without being cached
+    @Cacheable(unless = "#result == null || @busWriteBehindService.pending(#id).isPresent()")
     public Bus getById(String id) {
-        return busRepository.findById(id).orElse(null);
+        return busWriteBehind.pending(id).or(() -> busRepository.findById(id)).orElse(null);
+    }
+
+    // projected reads bypass the cache, which only holds whole buses
+    public Bus getById(String id, String fields) {
+        Set<String> projection = BusFields.parse(fields);
+        if (projection == null) {
+            return busWriteBehind.pending(id).or(() -> busRepository.findById(id)).orElse(null);
+        }
+        return busRepository.findProjectedById(id, projection).orElse(null);
     }
 
 
-    private Bus mapToBus(BusCreateRequest request) {
-        Bus item = new Bus(request.boardNumber(), request.code(), request.description());
-        return item;
+    // one findAllById ($in) for the whole batch instead of a findById per id
+    public BusBatch getByIds(List<String> ids) {
+        List<String> distinct = BusBatches.distinctIds(ids, maxBatchSize);
+        if (distinct.isEmpty()) {
+            return new BusBatch(List.of(), List.of());
+        }
+        return BusBatches.toBatch(distinct, busWriteBehind.overlay(busRepository.findAllById(distinct)));
     }
 
+    // single round trip: the unique index on code rejects duplicates, even under concurrent creates
+    @CachePut(key = "#result.id", unless = "#result == null")
     public Bus create(BusCreateRequest request) {
-        if (busRepository.existsByCode(request.code())) {
+        Bus item = BusRequests.toBus(request);
+        Bus created;
+        try {
+            created = busRepository.save(item);
+        } catch (DuplicateKeyException e) {
             return null;
         }
-        Bus item = mapToBus(request);
-        return busRepository.save(item);
+        recordWrite(BusAuditAction.CREATE, item.getId(), null, created, null);
+        return created;
     }
 
-    public Bus create(Bus item) {
+    // one $in lookup for the codes the code filter cannot rule out (none at all when it rules out every code)
+    // and one unordered bulk insert for the rest; requests without a code never clash, and a null in the $in
+    // would match every stored bus without one
+    public List<BusBulkResult> createAll(List<BusCreateRequest> requests) {
+        List<String> possibleCodes = requests.stream()
+                .map(BusCreateRequest::code)
+                .filter(Objects::nonNull)
+                .filter(busCodeFilter::mightExist)
+                .distinct()
+                .toList();
+        List<String> takenCodes = possibleCodes.isEmpty() ? List.of() : busRepository.findCodesIn(possibleCodes)
+                .stream()
+                .map(Bus::getCode)
+                .toList();
+        busCodeFilter.confirmed(possibleCodes, takenCodes);
+        BusBulkPlan plan = new BusBulkPlan(requests, takenCodes, BusRequests::toBus);
+        if (plan.toInsert().isEmpty()) {
+            return plan.complete(List.of());
+        }
+        List<BusBulkResult> results = plan.complete(busRepository.insertUnordered(plan.toInsert()));
+        auditCreated(results);
+        return results;
+    }
 
-        return busRepository.save(item);
+    // a bus posted with an id is an upsert: a parked update of that id is written first, so the flusher
+    // cannot overwrite this write later
+    @CachePut(key = "#result.id")
+    public Bus create(Bus item) {
+        busWriteBehind.flush(item.getId());
+        Bus created = busRepository.save(item);
+        recordWrite(BusAuditAction.CREATE, item.getId(), null, created, null);
+        return created;
     }
 
+    @Caching(put = @CachePut(key = "#result.id", unless = "#result.version == null"),
+            evict = @CacheEvict(key = "#result.id", condition = "#result.version == null"))
     public  Bus update(Bus item) {
-        return busRepository.save(item);
+        return update(item, null);
+    }
+
+    // only If-Match (expectedVersion) makes an update versioned, a version in the body is ignored; an update
+    // without one is parked in the write-behind buffer when it is on, or written in one upsert that never
+    // conflicts, a versioned one writes through and is checked
+    // a parked update comes back without a version: it evicts the cached bus instead of replacing it,
+    // reads are then answered from the write-behind buffer until the flush
+    // the stored bus is never read here, so the audit entry has no before state and says so in its note
+    @Caching(put = @CachePut(key = "#result.id", unless = "#result.version == null"),
+            evict = @CacheEvict(key = "#result.id", condition = "#result.version == null"))
+    public Bus update(Bus item, Long expectedVersion) {
+        item.setVersion(expectedVersion);
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+        if (item.getId() != null && item.getVersion() == null && busWriteBehind.offer(item, auditor)) {
+            recordWrite(BusAuditAction.UPDATE, item.getId(), null, item, BusAuditEntry.NO_BEFORE_STATE);
+            return item;
+        }
+        busWriteBehind.flush(item.getId());
+        Bus updated = busRepository.save(item);
+        recordWrite(BusAuditAction.UPDATE, item.getId(), null, updated, BusAuditEntry.NO_BEFORE_STATE);
+        return updated;
     }
 
+    @CachePut(key = "#result.id")
     public Bus update(BusUpdateRequest request) {
+        return update(request, null);
+    }
+
+    @CachePut(key = "#result.id")
+    public Bus update(BusUpdateRequest request, Long expectedVersion) {
+        busWriteBehind.flush(request.id());
         Bus bus = busRepository.findById(request.id()).orElse(new Bus());
+        // the bus was read anyway, so its stored state costs nothing extra; taken before bus is changed
+        BusAuditEntry.State before = BusAuditEntry.State.of(bus.getId() == null ? null : bus);
+        if (expectedVersion != null) {
+            if (bus.getId() == null) {
+                throw new BusVersionConflictException(request.id());
+            }
+        }
+        // as in update(Bus, Long): without If-Match the stored version is not checked
+        bus.setVersion(expectedVersion);
         bus.setId(request.id());
         bus.setBoardNumber(request.boardNumber());
         bus.setCode(request.code());
         bus.setDescription(request.description());
-        return busRepository.save(bus);
+        Bus updated = busRepository.save(bus);
+        recordWrite(BusAuditAction.UPDATE, request.id(), before, updated, null);
+        return updated;
     }
 
 
 
+    // only the supplied (non-null) fields are written, in one findAndModify
+    @CachePut(key = "#id", unless = "#result == null")
+    public Bus patch(String id, BusPatchRequest request) {
+        return patch(id, request, null);
+    }
+
+    @CachePut(key = "#id", unless = "#result == null")
+    public Bus patch(String id, BusPatchRequest request, Long expectedVersion) {
+        busWriteBehind.flush(id);
+        Bus patched = busRepository.updateFields(id, BusRequests.patchFields(request), auditorAware.getCurrentAuditor().orElse(null), expectedVersion);
+        if (patched == null && expectedVersion != null) {
+            throw new BusVersionConflictException(id);
+        }
+        if (patched != null) {
+            recordWrite(BusAuditAction.PATCH, id, null, patched, null);
+        }
+        return patched;
+    }
+
+    // one findAndRemove, which hands back the removed bus for the audit entry
+    @CacheEvict
     public void delById(String id) {
-        busRepository.deleteById(id);
+        Bus removed = busWriteBehind.discardAndDelete(id, () -> busRepository.findAndRemoveById(id));
+        recordWrite(BusAuditAction.DELETE, id, BusAuditEntry.State.of(removed), null, null);
+    }
+
+    // one deleteMany for the whole selection; a filter does not say which ids it removed,
+    // so the cache is cleared in one pass once the delete went through
+    @CacheEvict(allEntries = true)
+    public BusDeleteResult deleteAll(BusDeleteRequest request) {
+        BusRequests.requireDeleteCriteria(request);
+        // parked updates must not bring back buses the filter is about to delete
+        busWriteBehind.flushAll();
+        List<String> ids = request.ids() == null ? null : BusBatches.distinctIds(request.ids(), maxBatchSize);
+        long deleted = busRepository.deleteMatching(ids, BusSearch.criterion(request.codePrefix()),
+                request.lastModifiedBefore());
+        recordWrite(BusAuditAction.DELETE_MANY, null, null, null, BusRequests.describeDelete(request, deleted));
+        return new BusDeleteResult(deleted);
+    }
+
+    private void auditCreated(List<BusBulkResult> results) {
+        results.stream()
+                .filter(result -> result.bus() != null)
+                .forEach(result -> recordWrite(BusAuditAction.CREATE, result.bus().getId(), null, result.bus(), null));
+    }
+
+    // bookkeeping after every successful write: the code joins the code filter, the audit entry is handed
+    // to the background writer (the write itself never waits for the audit trail)
+    private void recordWrite(BusAuditAction action, String busId, BusAuditEntry.State before, Bus after, String note) {
+        if (after != null) {
+            busCodeFilter.add(after.getCode());
+        }
+        busAuditService.record(action, busId, auditorAware.getCurrentAuditor().orElse(null),
+                before, BusAuditEntry.State.of(after), note);
     }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusWriteBehindService
+  version 1.0.0
+  @since 19.10.2026 - 13:10
+*/
+
+import com.mongodb.bulk.BulkWriteError;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.repository.BusRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Opt-in write-behind for unconditional whole-bus updates (bus.write-behind.enabled): an update is parked
+// here by id, a later update of the same bus replaces it, and every bus.write-behind.window the parked buses
+// are written in one unordered bulk of upserts, so Mongo sees one write per distinct bus per window.
+//
+// At most bus.write-behind.max-pending distinct buses are parked; an update of another bus waits up to
+// bus.write-behind.offer-timeout for room and is otherwise refused, leaving the caller to write it itself.
+// A failed bulk keeps the buses parked for the next window, a bus rejected by Mongo (e.g. a duplicate code)
+// is dropped and logged. Parked buses are lost if the process dies; shutdown writes them out.
+@Slf4j
+@Service
+@Profile("!reactive")
+public class BusWriteBehindService {
+
+    private static final String BUS_CACHE = "buses";
+
+    private final BusRepository busRepository;
+    private final CacheManager cacheManager;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Semaphore room;
+    private final Counter queued;
+    private final Counter coalesced;
+    private final Counter rejected;
+    private final Counter written;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    @Value("${bus.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${bus.write-behind.window:200ms}")
+    private Duration window = Duration.ofMillis(200);
+
+    @Value("${bus.write-behind.offer-timeout:100ms}")
+    private Duration offerTimeout = Duration.ofMillis(100);
+
+    private Thread flusher;
+    private volatile boolean running;
+
+    public BusWriteBehindService(BusRepository busRepository, CacheManager cacheManager, MeterRegistry meterRegistry,
+                                 @Value("${bus.write-behind.max-pending:10000}") int maxPending) {
+        this.busRepository = busRepository;
+        this.cacheManager = cacheManager;
+        this.room = new Semaphore(maxPending);
+        this.queued = updates(meterRegistry, "queued");
+        this.coalesced = updates(meterRegistry, "coalesced");
+        this.rejected = updates(meterRegistry, "rejected");
+        this.written = writes(meterRegistry, "written");
+        this.failed = writes(meterRegistry, "failed");
+        this.flushTimer = Timer.builder("bus.write-behind.flush")
+                .description("Bulk writes of the parked buses")
+                .register(meterRegistry);
+        meterRegistry.gauge("bus.write-behind.pending", pending, Map::size);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "bus-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        // the flusher notices after its current window; whatever is still parked then is written here
+        running = false;
+        flusher.join(2 * window.toMillis());
+        flushAll();
+    }
+
+    // parks the bus for the next bulk write; false when write-behind is off or there was no room in time,
+    // in which case the caller writes the bus itself
+    public boolean offer(Bus bus, String modifiedBy) {
+        if (!enabled) {
+            return false;
+        }
+        bus.setLastModifiedDate(LocalDateTime.now());
+        bus.setLastModifiedBy(modifiedBy);
+        bus.setParked(true);
+        Pending next = new Pending(bus);
+        if (pending.computeIfPresent(bus.getId(), (id, previous) -> next) != null) {
+            coalesced.increment();
+            return true;
+        }
+        try {
+            if (!room.tryAcquire(offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return reject(bus);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return reject(bus);
+        }
+        boolean[] added = {false};
+        pending.compute(bus.getId(), (id, previous) -> {
+            added[0] = previous == null;
+            return next;
+        });
+        if (added[0]) {
+            queued.increment();
+        } else {
+            // another update of the same bus got in first and holds the room
+            room.release();
+            coalesced.increment();
+        }
+        return true;
+    }
+
+    // the caller writes the bus through, so it is not parked after all
+    private boolean reject(Bus bus) {
+        bus.setParked(false);
+        rejected.increment();
+        return false;
+    }
+
+    // the parked version of the bus, if any; reads check it before Mongo
+    public Optional<Bus> pending(String id) {
+        if (pending.isEmpty() || id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(pending.get(id)).map(Pending::bus);
+    }
+
+    // replaces the buses read from Mongo by their parked versions
+    public List<Bus> overlay(List<Bus> buses) {
+        if (pending.isEmpty()) {
+            return buses;
+        }
+        return buses.stream()
+                .map(bus -> pending(bus.getId()).orElse(bus))
+                .toList();
+    }
+
+    // writes the parked version of one bus now, before a write that must not be overtaken by it
+    public void flush(String id) {
+        if (id != null && pending.containsKey(id)) {
+            write(List.of(id));
+        }
+    }
+
+    // writes every parked bus now, e.g. before a delete by filter
+    public void flushAll() {
+        if (!pending.isEmpty()) {
+            write(new ArrayList<>(pending.keySet()));
+        }
+    }
+
+    // a delete wins over a parked update of the same bus: the parked version is dropped and the delete runs
+    // under the flush lock, so a flush cannot write the bus back after it; returns what the delete returned
+    public synchronized <T> T discardAndDelete(String id, Supplier<T> delete) {
+        if (id != null && pending.remove(id) != null) {
+            room.release();
+        }
+        return delete.get();
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(window.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                flushAll();
+            } catch (RuntimeException e) {
+                log.warn("Write-behind flush failed, {} buses stay parked: {}", pending.size(), e.getMessage());
+            }
+        }
+    }
+
+    // one bulk at a time, so a bus is never written by two flushes at once; the parked versions are picked
+    // under the lock, so a bus discarded by a delete meanwhile is not written
+    private synchronized void write(Collection<String> ids) {
+        List<Pending> batch = ids.stream().map(pending::get).filter(Objects::nonNull).toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Bus> buses = batch.stream().map(Pending::bus).toList();
+        List<BulkWriteError> errors = flushTimer.record(() -> busRepository.upsertUnordered(buses));
+        for (BulkWriteError error : errors) {
+            log.warn("Write-behind update of bus {} was rejected: {}", buses.get(error.getIndex()).getId(),
+                    error.getMessage());
+        }
+        failed.increment(errors.size());
+        written.increment(batch.size() - errors.size());
+        // only the versions written here leave; a bus updated again meanwhile stays parked
+        batch.forEach(parked -> {
+            if (pending.remove(parked.bus().getId(), parked)) {
+                room.release();
+            }
+        });
+        // parked writes are not cached, but a read racing the park may have cached the old document,
+        // and a bus Mongo rejected must not be served from anywhere
+        Cache cache = cacheManager.getCache(BUS_CACHE);
+        if (cache != null) {
+            buses.forEach(bus -> cache.evict(bus.getId()));
+        }
+    }
+
+    private static Counter updates(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("bus.write-behind.updates")
+                .description("Updates offered to the write-behind buffer by what became of them")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static Counter writes(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("bus.write-behind.writes")
+                .description("Buses written, or rejected by Mongo, in write-behind bulks")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // identity, not Bus.equals (which compares ids), tells one parked version from the next
+    private static final class Pending {
+
+        private final Bus bus;
+
+        private Pending(Bus bus) {
+            this.bus = bus;
+        }
+
+        private Bus bus() {
+            return bus;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class IdempotencyService
+  version 1.0.0
+  @since 19.10.2026 - 09:20
+*/
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ilkiv.lab5.exception.IdempotencyKeyInProgressException;
+import edu.ilkiv.lab5.exception.IdempotencyKeyReusedException;
+import edu.ilkiv.lab5.model.IdempotencyRecord;
+import edu.ilkiv.lab5.repository.IdempotencyRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Idempotency-Key handling: the first request with a key claims it in the idempotencyKeys collection
+// (TTL-indexed, see IndexConfiguration) and stores its result there; retries with the same key replay
+// that result from the in-memory front or from Mongo without running the action again. A claim that has
+// no result after bus.idempotency.lease (the owner died, or could not store its result) is taken over by
+// the next retry with the same body.
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final String FRONT_CACHE = "idempotencyKeys";
+
+    private final IdempotencyRepository idempotencyRepository;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${bus.idempotency.lease:30s}")
+    private Duration lease = Duration.ofSeconds(30);
+
+    // scope keeps keys of different routes apart; a blank key runs the action as is
+    public <T> T execute(String key, String scope, Object request, Class<T> type, Supplier<T> action) {
+        return execute(key, scope, request, objectMapper.constructType(type), action);
+    }
+
+    public <T> List<T> executeList(String key, String scope, Object request, Class<T> elementType,
+                                   Supplier<List<T>> action) {
+        return execute(key, scope, request,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, elementType), action);
+    }
+
+    private <T> T execute(String key, String scope, Object request, JavaType type, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String id = scope + " " + key;
+        String fingerprint = DigestUtils.md5DigestAsHex(write(request).getBytes(StandardCharsets.UTF_8));
+        Cache front = cacheManager.getCache(FRONT_CACHE);
+        IdempotencyRecord done = front.get(id, IdempotencyRecord.class);
+        // identifies this request's claim, so only that claim is released on failure
+        Date claimedAt = new Date();
+        if (done == null) {
+            done = claim(id, key, fingerprint, claimedAt);
+        }
+        if (done != null) {
+            if (!done.getFingerprint().equals(fingerprint)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            front.put(id, done);
+            return read(done.getResponse(), type);
+        }
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // a failed attempt leaves nothing behind, so the client can retry with the same key
+            idempotencyRepository.release(id, claimedAt);
+            throw e;
+        }
+        Date now = new Date();
+        IdempotencyRecord record = new IdempotencyRecord(id, fingerprint, write(result), now, now);
+        idempotencyRepository.save(record);
+        front.put(id, record);
+        return result;
+    }
+
+    // null when this request now owns the key, otherwise the finished record of an earlier request
+    private IdempotencyRecord claim(String id, String key, String fingerprint, Date claimedAt) {
+        try {
+            idempotencyRepository.insert(new IdempotencyRecord(id, fingerprint, null, claimedAt, claimedAt));
+            return null;
+        } catch (DuplicateKeyException e) {
+            IdempotencyRecord existing = idempotencyRepository.findById(id).orElse(null);
+            if (existing == null) {
+                throw new IdempotencyKeyInProgressException(key);
+            }
+            if (existing.getResponse() == null && existing.getFingerprint().equals(fingerprint)) {
+                Date claimedBefore = new Date(claimedAt.getTime() - lease.toMillis());
+                if (idempotencyRepository.takeOver(id, fingerprint, claimedBefore, claimedAt) == 1) {
+                    return null;
+                }
+                throw new IdempotencyKeyInProgressException(key);
+            }
+            return existing;
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T read(String json, JavaType type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveBusService
+  version 1.0.0
+  @since 18.10.2026 - 16:45
+*/
+
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.model.BusAuditAction;
+import edu.ilkiv.lab5.model.BusAuditEntry;
+import edu.ilkiv.lab5.repository.ReactiveBusRepository;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusDeleteRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
+import edu.ilkiv.lab5.request.BusUpdateRequest;
+import edu.ilkiv.lab5.response.BusBatch;
+import edu.ilkiv.lab5.response.BusBulkResult;
+import edu.ilkiv.lab5.response.BusDeleteResult;
+import edu.ilkiv.lab5.response.BusPage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+// non-blocking twin of BusService for the "reactive" profile; reads go straight to Mongo, there is no cache
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveBusService {
+
+    private final ReactiveBusRepository busRepository;
+    private final AuditorAware<String> auditorAware;
+    private final BusAuditService busAuditService;
+
+    @Value("${bus.page.default-size:20}")
+    private int defaultPageSize = 20;
+
+    @Value("${bus.page.max-size:200}")
+    private int maxPageSize = 200;
+
+    @Value("${bus.batch.max-size:500}")
+    private int maxBatchSize = 500;
+
+    @Value("${bus.export.batch-size:500}")
+    private int exportBatchSize = 500;
+
+    public Flux<Bus> getAll() {
+        return busRepository.findAll();
+    }
+
+    public Flux<Bus> getAll(String fields) {
+        return Flux.defer(() -> {
+            Set<String> projection = BusFields.parse(fields);
+            return projection == null ? busRepository.findAll() : busRepository.findAllProjected(projection);
+        });
+    }
+
+    public Mono<BusPage> getPage(String cursor, Integer size) {
+        int pageSize = BusCursors.pageSize(size, defaultPageSize, maxPageSize);
+        return Mono.defer(() -> busRepository.findPageAfter(BusCursors.decode(cursor), pageSize + 1).collectList())
+                .map(found -> BusCursors.toPage(found, pageSize));
+    }
+
+    public Mono<BusPage> search(String code, String boardNumber, String q, String cursor, Integer size) {
+        int pageSize = BusCursors.pageSize(size, defaultPageSize, maxPageSize);
+        return Mono.defer(() -> busRepository.searchPageAfter(BusSearch.criterion(code), BusSearch.criterion(boardNumber),
+                        BusSearch.criterion(q), BusCursors.decode(cursor), pageSize + 1).collectList())
+                .map(found -> BusCursors.toPage(found, pageSize));
+    }
+
+    public Mono<BusPage> getPage(String cursor, Integer size, String fields) {
+        return Mono.defer(() -> {
+            Set<String> projection = BusFields.parse(fields);
+            if (projection == null) {
+                return getPage(cursor, size);
+            }
+            int pageSize = BusCursors.pageSize(size, defaultPageSize, maxPageSize);
+            return busRepository.findPageAfter(BusCursors.decode(cursor), pageSize + 1, projection)
+                    .collectList()
+                    .map(found -> BusCursors.toPage(found, pageSize));
+        });
+    }
+
+    public Flux<Bus> streamAll() {
+        return busRepository.streamAll(exportBatchSize);
+    }
+
+    public Mono<Bus> getById(String id) {
+        return busRepository.findById(id);
+    }
+
+    public Mono<Bus> getById(String id, String fields) {
+        return Mono.defer(() -> {
+            Set<String> projection = BusFields.parse(fields);
+            return projection == null ? busRepository.findById(id) : busRepository.findProjectedById(id, projection);
+        });
+    }
+
+    public Mono<BusBatch> getByIds(List<String> ids) {
+        return Mono.defer(() -> {
+            List<String> distinct = BusBatches.distinctIds(ids, maxBatchSize);
+            if (distinct.isEmpty()) {
+                return Mono.just(new BusBatch(List.of(), List.of()));
+            }
+            return busRepository.findAllById(distinct)
+                    .collectList()
+                    .map(found -> BusBatches.toBatch(distinct, found));
+        });
+    }
+
+    public Mono<Bus> create(BusCreateRequest request) {
+        return busRepository.save(BusRequests.toBus(request))
+                .doOnNext(created -> audit(BusAuditAction.CREATE, created.getId(), null, created, null))
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.empty());
+    }
+
+    // requests without a code are kept out of the $in, as in BusService.createAll
+    public Mono<List<BusBulkResult>> createAll(List<BusCreateRequest> requests) {
+        List<String> codes = requests.stream().map(BusCreateRequest::code).filter(Objects::nonNull).distinct().toList();
+        Flux<Bus> taken = codes.isEmpty() ? Flux.empty() : busRepository.findCodesIn(codes);
+        return taken
+                .map(Bus::getCode)
+                .collectList()
+                .flatMap(takenCodes -> {
+                    BusBulkPlan plan = new BusBulkPlan(requests, takenCodes, BusRequests::toBus);
+                    if (plan.toInsert().isEmpty()) {
+                        return Mono.just(plan.complete(List.of()));
+                    }
+                    return busRepository.insertUnordered(plan.toInsert()).map(plan::complete);
+                })
+                .doOnNext(this::auditCreated);
+    }
+
+    public Mono<Bus> create(Bus item) {
+        return busRepository.save(item)
+                .doOnNext(created -> audit(BusAuditAction.CREATE, created.getId(), null, created, null));
+    }
+
+    // only If-Match (expectedVersion) makes an update versioned, see BusService.update(Bus, Long),
+    // which also explains the missing before state
+    public Mono<Bus> update(Bus item, Long expectedVersion) {
+        item.setVersion(expectedVersion);
+        return busRepository.save(item)
+                .doOnNext(updated -> audit(BusAuditAction.UPDATE, updated.getId(), null, updated,
+                        BusAuditEntry.NO_BEFORE_STATE));
+    }
+
+    public Mono<Bus> update(BusUpdateRequest request, Long expectedVersion) {
+        return busRepository.findById(request.id())
+                .switchIfEmpty(Mono.defer(() -> expectedVersion == null
+                        ? Mono.just(new Bus())
+                        : Mono.error(new BusVersionConflictException(request.id()))))
+                .flatMap(bus -> {
+                    BusAuditEntry.State before = BusAuditEntry.State.of(bus.getId() == null ? null : bus);
+                    bus.setVersion(expectedVersion);
+                    bus.setId(request.id());
+                    bus.setBoardNumber(request.boardNumber());
+                    bus.setCode(request.code());
+                    bus.setDescription(request.description());
+                    return busRepository.save(bus)
+                            .doOnNext(updated -> audit(BusAuditAction.UPDATE, updated.getId(), before, updated, null));
+                });
+    }
+
+    public Mono<Bus> patch(String id, BusPatchRequest request, Long expectedVersion) {
+        Mono<Bus> patched = busRepository.updateFields(id, BusRequests.patchFields(request),
+                auditorAware.getCurrentAuditor().orElse(null), expectedVersion)
+                .doOnNext(bus -> audit(BusAuditAction.PATCH, id, null, bus, null));
+        if (expectedVersion == null) {
+            return patched;
+        }
+        return patched.switchIfEmpty(Mono.error(() -> new BusVersionConflictException(id)));
+    }
+
+    // as in BusService.delById: the removed bus comes back from the same findAndRemove
+    public Mono<Void> delById(String id) {
+        return busRepository.findAndRemoveById(id)
+                .doOnSuccess(removed -> audit(BusAuditAction.DELETE, id, BusAuditEntry.State.of(removed), null, null))
+                .then();
+    }
+
+    public Mono<BusDeleteResult> deleteAll(BusDeleteRequest request) {
+        return Mono.defer(() -> {
+            BusRequests.requireDeleteCriteria(request);
+            List<String> ids = request.ids() == null ? null : BusBatches.distinctIds(request.ids(), maxBatchSize);
+            return busRepository.deleteMatching(ids, BusSearch.criterion(request.codePrefix()), request.lastModifiedBefore())
+                    .doOnNext(deleted -> audit(BusAuditAction.DELETE_MANY, null, null, null,
+                            BusRequests.describeDelete(request, deleted)))
+                    .map(BusDeleteResult::new);
+        });
+    }
+
+    private void auditCreated(List<BusBulkResult> results) {
+        results.stream()
+                .filter(result -> result.bus() != null)
+                .forEach(result -> audit(BusAuditAction.CREATE, result.bus().getId(), null, result.bus(), null));
+    }
+
+    // record() only queues the entry, so it is safe on the event loop
+    private void audit(BusAuditAction action, String busId, BusAuditEntry.State before, Bus after, String note) {
+        busAuditService.record(action, busId, auditorAware.getCurrentAuditor().orElse(null),
+                before, BusAuditEntry.State.of(after), note);
+    }
+}
@@ -0,0 +1,85 @@
+package edu.ilkiv.lab5;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusThreadingComparisonTests
+  version 1.0.0
+  @since 18.10.2026 - 18:40
+*/
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// platform-thread Tomcat (200 threads) against the "virtual" profile, both on random ports.
+// concurrency defaults above the platform pool size so requests queue there.
+// needs Java 21, run with: mvn test -Pbenchmark -Dbench.concurrency=400 -Dbench.seconds=10
+@Tag("benchmark")
+class BusThreadingComparisonTests {
+
+    private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 400);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 10);
+
+    private static final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private static ConfigurableApplicationContext platform;
+    private static ConfigurableApplicationContext virtual;
+
+    @BeforeAll
+    static void startBoth() {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+        platform = start();
+        virtual = start("virtual");
+    }
+
+    @AfterAll
+    static void stopBoth() {
+        if (platform != null) {
+            platform.close();
+            virtual.close();
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+            "GET list, ''",
+            "GET by id, 1",
+            "GET page of 20, page?size=20"
+    })
+    void compare(String name, String path) throws Exception {
+        ClosedLoopLoad.Result platformResult = run(uri(platform, path));
+        ClosedLoopLoad.Result virtualResult = run(uri(virtual, path));
+        System.out.printf("%-16s concurrency %d, %ds: platform %s | virtual %s%n",
+                name, CONCURRENCY, SECONDS, platformResult, virtualResult);
+    }
+
+    private ClosedLoopLoad.Result run(URI uri) throws Exception {
+        ClosedLoopLoad.Result result = ClosedLoopLoad.run(client, HttpRequest.newBuilder(uri).GET().build(),
+                CONCURRENCY, SECONDS);
+        assertThat(result.ok()).as("successful requests against " + uri).isPositive();
+        return result;
+    }
+
+    private static ConfigurableApplicationContext start(String... profiles) {
+        return new SpringApplicationBuilder(Lab5Application.class)
+                .profiles(profiles)
+                .run("--server.port=0");
+    }
+
+    private static URI uri(ConfigurableApplicationContext context, String path) {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/v1/buses/" + path);
+    }
+}
@@ -0,0 +1,110 @@
+package edu.ilkiv.lab5;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusThroughputComparisonTests
+  version 1.0.0
+  @since 18.10.2026 - 17:40
+*/
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// servlet and reactive variants side by side, each started on a random port against the same database.
+// excluded from the default build, run with: mvn test -Pbenchmark
+// tune with -Dbench.concurrency=256 -Dbench.seconds=10 -Dbench.buses=500
+@Tag("benchmark")
+class BusThroughputComparisonTests {
+
+    private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 256);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 10);
+    private static final int BUSES = Integer.getInteger("bench.buses", 500);
+
+    private static final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private static ConfigurableApplicationContext servlet;
+    private static ConfigurableApplicationContext reactive;
+    private static final List<String> seededIds = new ArrayList<>();
+
+    @BeforeAll
+    static void startBoth() throws Exception {
+        servlet = start();
+        reactive = start("reactive");
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < BUSES; i++) {
+            body.append(i == 0 ? "" : ",")
+                    .append("{\"boardNumber\":\"BN ").append(i)
+                    .append("\",\"code\":\"bench-").append(i)
+                    .append("\",\"description\":\"throughput comparison\"}");
+        }
+        String created = client.send(HttpRequest.newBuilder(uri(servlet, "dto/bulk"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.append("]").toString())).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher ids = Pattern.compile("\"id\":\"([0-9a-f]{24})\"").matcher(created);
+        while (ids.find()) {
+            seededIds.add(ids.group(1));
+        }
+    }
+
+    @AfterAll
+    static void stopBoth() throws Exception {
+        for (String id : seededIds) {
+            client.send(HttpRequest.newBuilder(uri(servlet, id)).DELETE().build(), HttpResponse.BodyHandlers.discarding());
+        }
+        servlet.close();
+        reactive.close();
+    }
+
+    @Test
+    void compareListThroughput() throws Exception {
+        compare("GET list", "");
+    }
+
+    @Test
+    void comparePageThroughput() throws Exception {
+        compare("GET page of 50", "page?size=50");
+    }
+
+    private void compare(String name, String path) throws Exception {
+        ClosedLoopLoad.Result servletResult = run(uri(servlet, path));
+        ClosedLoopLoad.Result reactiveResult = run(uri(reactive, path));
+        System.out.printf("%-16s concurrency %d, %ds: servlet %s | reactive %s%n",
+                name, CONCURRENCY, SECONDS, servletResult, reactiveResult);
+    }
+
+    private ClosedLoopLoad.Result run(URI uri) throws Exception {
+        ClosedLoopLoad.Result result = ClosedLoopLoad.run(client, HttpRequest.newBuilder(uri).GET().build(),
+                CONCURRENCY, SECONDS);
+        assertThat(result.failed()).as("failed requests against " + uri).isZero();
+        assertThat(result.ok()).isPositive();
+        return result;
+    }
+
+    private static ConfigurableApplicationContext start(String... profiles) {
+        return new SpringApplicationBuilder(Lab5Application.class)
+                .profiles(profiles)
+                .run("--server.port=0");
+    }
+
+    private static URI uri(ConfigurableApplicationContext context, String path) {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/v1/buses/" + path);
+    }
+}
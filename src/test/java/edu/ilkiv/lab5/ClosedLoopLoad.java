@@ -0,0 +1,95 @@
+package edu.ilkiv.lab5;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ClosedLoopLoad
+  version 1.0.0
+  @since 18.10.2026 - 18:30
+*/
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// closed loop: every worker sends its next request as soon as the previous answer arrived,
+// so the number of in-flight requests equals the number of workers
+final class ClosedLoopLoad {
+
+    record Result(long ok, long failed, int seconds, long[] latenciesMicros) {
+
+        double perSecond() {
+            return (double) ok / seconds;
+        }
+
+        long percentileMicros(double percentile) {
+            if (latenciesMicros.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latenciesMicros.length) - 1;
+            return latenciesMicros[Math.max(index, 0)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.0f req/s, p50 %.1f ms, p99 %.1f ms",
+                    perSecond(), percentileMicros(50) / 1000.0, percentileMicros(99) / 1000.0);
+        }
+    }
+
+    private ClosedLoopLoad() {
+    }
+
+    static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<Worker>> running = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            running.add(workers.submit(() -> new Worker().loop(client, request, deadline)));
+        }
+        long ok = 0;
+        long failed = 0;
+        long[] latencies = new long[0];
+        for (Future<Worker> future : running) {
+            Worker worker = future.get();
+            ok += worker.count - worker.failed;
+            failed += worker.failed;
+            int from = latencies.length;
+            latencies = Arrays.copyOf(latencies, from + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, from, worker.count);
+        }
+        workers.shutdown();
+        Arrays.sort(latencies);
+        return new Result(ok, failed, seconds, latencies);
+    }
+
+    private static final class Worker {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long failed;
+
+        Worker loop(HttpClient client, HttpRequest request, long deadline) {
+            while (System.nanoTime() < deadline) {
+                long start = System.nanoTime();
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                        failed++;
+                    }
+                } catch (Exception e) {
+                    failed++;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = (System.nanoTime() - start) / 1000;
+            }
+            return this;
+        }
+    }
+}
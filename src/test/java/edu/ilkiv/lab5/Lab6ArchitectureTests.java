@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import static com.tngtech.archunit.lang.syntax.ArchRuleDefinition.*;
@@ -139,7 +140,8 @@ public class Lab6ArchitectureTests {
                 .that().resideInAPackage("..repository..")
                 .and().haveSimpleNameEndingWith("Repository")
                 .should().beAssignableTo(CrudRepository.class)
-                .because("репозиторії повинні наслідуватись від CrudRepository")
+                .orShould().beAssignableTo(ReactiveCrudRepository.class)
+                .because("репозиторії повинні наслідуватись від CrudRepository або ReactiveCrudRepository")
                 .check(applicationClasses);
     }
 
@@ -0,0 +1,49 @@
+package edu.ilkiv.lab5;
+
+/*
+  @author Bodya
+  @project lab5
+  @class MetricsEndpointTests
+  version 1.0.0
+  @since 18.10.2026 - 20:20
+*/
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Prometheus scrape should expose route, service, Mongo command and pool metrics")
+    void testPrometheusExposesBusMetrics() throws Exception {
+        // given
+        mockMvc.perform(get("/api/v1/buses/1")).andExpect(status().isOk());
+
+        // when
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // then
+        assertThat(scrape)
+                .containsPattern("http_server_requests_seconds_bucket\\{.*uri=\"/api/v1/buses/\\{id\\}\"")
+                .containsPattern("bus_service_seconds_bucket\\{.*method=\"getById\"")
+                .containsPattern("mongodb_driver_commands_seconds_bucket\\{.*collection=\"bus\".*command=\"find\"")
+                .contains("mongodb_driver_pool_size");
+    }
+}
@@ -8,17 +8,25 @@ package edu.ilkiv.lab5;
   @since 24.04.2025 - 20:24 
 */
 
+import com.mongodb.bulk.BulkWriteError;
 import edu.ilkiv.lab5.model.Bus;
 import edu.ilkiv.lab5.repository.BusRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,6 +37,9 @@ public class RepositoryTest {
     @Autowired
     BusRepository underTest;
 
+    @Autowired
+    MongoTemplate mongoTemplate;
+
     @BeforeEach
     void setUp() {
         Bus freddy = new Bus("1", "1234 CE", "000001","###test");
@@ -542,7 +553,8 @@ public class RepositoryTest {
         List<Bus> allAfterDelete = underTest.findAll();
         assertEquals(0, allAfterDelete.size());
 
-        // Restore test data for other tests
+        // Restore test data for other tests (as new writes, their old versions no longer exist)
+        allBeforeDelete.forEach(bus -> bus.setVersion(null));
         underTest.saveAll(allBeforeDelete);
     }
 
@@ -593,4 +605,324 @@ public class RepositoryTest {
         assertEquals("UPDATED-ORDER", found.getBoardNumber());
         assertEquals("OT001", found.getCode());
     }
+
+    @Test
+    void shouldWalkAllBusesWithKeysetPages() {
+        // Given
+        underTest.saveAll(List.of(
+                new Bus("PAGE-1", "P001", "###test-page"),
+                new Bus("PAGE-2", "P002", "###test-page")));
+        long total = underTest.count();
+
+        // When
+        List<String> seen = new ArrayList<>();
+        String lastId = null;
+        List<Bus> page;
+        do {
+            page = underTest.findPageAfter(lastId, 2);
+            page.forEach(bus -> seen.add(bus.getId()));
+            lastId = page.isEmpty() ? lastId : page.get(page.size() - 1).getId();
+        } while (page.size() == 2);
+
+        // Then
+        assertEquals(total, seen.size());
+        assertEquals(total, seen.stream().distinct().count());
+    }
+
+    @Test
+    void shouldStreamEveryBusThroughCursor() {
+        // Given
+        long total = underTest.count();
+
+        // When
+        long streamed;
+        try (Stream<Bus> buses = underTest.streamAll(2)) {
+            streamed = buses.count();
+        }
+
+        // Then
+        assertEquals(total, streamed);
+    }
+
+    @Test
+    void shouldInsertBusesWithOneUnorderedBulkWrite() {
+        // Given
+        Bus first = new Bus(new ObjectId().toHexString(), "BULK-1", "B001", "###test-bulk");
+        Bus second = new Bus(new ObjectId().toHexString(), "BULK-2", "B002", "###test-bulk");
+
+        // When
+        List<BulkWriteError> errors = underTest.insertUnordered(List.of(first, second));
+
+        // Then
+        assertTrue(errors.isEmpty());
+        assertTrue(underTest.existsById(first.getId()));
+        assertEquals(2, underTest.findCodesIn(List.of("B001", "B002", "B999")).size());
+        // preset ids do not stop the buses from being recorded as created
+        assertNotNull(underTest.findById(first.getId()).orElseThrow().getCreatedDate());
+        assertNotNull(underTest.findById(second.getId()).orElseThrow().getCreatedDate());
+    }
+
+    @Test
+    void shouldUpsertInOneUnorderedBulk() {
+        // Given
+        Bus saved = underTest.save(new Bus("UPSERT-1", "UP001", "###test-upsert"));
+        Bus changed = new Bus(saved.getId(), "UPSERT-1", "UP001", "###test-upsert changed");
+        changed.setLastModifiedBy("writer");
+        Bus added = new Bus(new ObjectId().toHexString(), "UPSERT-2", "UP002", "###test-upsert");
+        Bus duplicate = new Bus(new ObjectId().toHexString(), "UPSERT-3", "UP001", "###test-upsert");
+
+        // When
+        List<BulkWriteError> errors = underTest.upsertUnordered(List.of(changed, added, duplicate));
+
+        // Then
+        assertEquals(1, errors.size());
+        assertEquals(2, errors.get(0).getIndex());
+        Bus reread = underTest.findById(saved.getId()).orElseThrow();
+        assertEquals("###test-upsert changed", reread.getDescription());
+        assertEquals("writer", reread.getLastModifiedBy());
+        assertEquals(saved.getVersion() + 1, reread.getVersion());
+        assertTrue(underTest.existsById(added.getId()));
+    }
+
+    @Test
+    void shouldInsertOnlyMissingBuses() {
+        // Given
+        Bus edited = underTest.save(new Bus("SEED-1", "SE001", "###test-seed edited"));
+        Bus stored = new Bus(edited.getId(), "SEED-1", "SE001", "###test-seed");
+        Bus missing = new Bus(new ObjectId().toHexString(), "SEED-2", "SE002", "###test-seed");
+
+        // When
+        int inserted = underTest.insertMissing(List.of(stored, missing));
+
+        // Then
+        assertEquals(1, inserted);
+        assertEquals("###test-seed edited", underTest.findById(edited.getId()).orElseThrow().getDescription());
+        assertEquals(0L, underTest.findById(missing.getId()).orElseThrow().getVersion());
+        assertEquals(0, underTest.insertMissing(List.of(stored, missing)));
+    }
+
+    @Test
+    void shouldRejectDuplicateCode() {
+        // Given
+        underTest.save(new Bus("UNIQUE-1", "U001", "###test-unique"));
+
+        // When & Then
+        assertThrows(DuplicateKeyException.class,
+                () -> underTest.save(new Bus("UNIQUE-2", "U001", "###test-unique")));
+    }
+
+    @Test
+    void shouldAllowSeveralBusesWithoutCode() {
+        // Given
+        Bus first = underTest.save(new Bus("NOCODE-1", null, "###test-no-code"));
+
+        // When
+        Bus second = underTest.save(new Bus("NOCODE-2", null, "###test-no-code"));
+
+        // Then
+        assertNotEquals(first.getId(), second.getId());
+        assertTrue(underTest.findById(second.getId()).isPresent());
+    }
+
+    @Test
+    void shouldPatchOnlyGivenFields() {
+        // Given
+        Bus saved = underTest.save(new Bus("PATCH-1", "PA001", "###test-patch"));
+
+        // When
+        Bus patched = underTest.updateFields(saved.getId(), Map.of("boardNumber", "PATCH-2"), "tester", null);
+
+        // Then
+        assertNotNull(patched);
+        assertEquals("PATCH-2", patched.getBoardNumber());
+        assertEquals("PA001", patched.getCode());
+        assertEquals("###test-patch", patched.getDescription());
+        assertEquals("tester", patched.getLastModifiedBy());
+        assertNotNull(patched.getLastModifiedDate());
+    }
+
+    @Test
+    void shouldReturnNullWhenPatchingMissingBus() {
+        assertNull(underTest.updateFields("missing-" + System.currentTimeMillis(), Map.of("code", "X"), "tester", null));
+    }
+
+    @Test
+    void shouldStartNewBusAtVersionZero() {
+        // When
+        Bus saved = underTest.save(new Bus("VERSION-1", "V001", "###test-version"));
+
+        // Then
+        assertEquals(0L, saved.getVersion());
+    }
+
+    @Test
+    void shouldBumpVersionOnEverySave() {
+        // Given
+        Bus saved = underTest.save(new Bus("VERSION-2", "V002", "###test-version"));
+
+        // When
+        saved.setDescription("###test-version-updated");
+        Bus updated = underTest.save(saved);
+
+        // Then
+        assertEquals(1L, updated.getVersion());
+        assertEquals(1L, underTest.findById(saved.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void shouldRejectSaveWithStaleVersion() {
+        // Given
+        Bus saved = underTest.save(new Bus("VERSION-3", "V003", "###test-version"));
+        Bus first = underTest.findById(saved.getId()).orElseThrow();
+        Bus second = underTest.findById(saved.getId()).orElseThrow();
+        first.setDescription("###test-version-first");
+        underTest.save(first);
+
+        // When & Then
+        second.setDescription("###test-version-second");
+        assertThrows(OptimisticLockingFailureException.class, () -> underTest.save(second));
+        assertEquals("###test-version-first", underTest.findById(saved.getId()).orElseThrow().getDescription());
+    }
+
+    @Test
+    void shouldOverwriteWithoutVersionInOneUpsert() {
+        // Given
+        Bus saved = underTest.save(new Bus("VERSION-4", "V004", "###test-version"));
+        saved.setDescription("###test-version-other");
+        underTest.save(saved);
+
+        // When
+        Bus blind = new Bus(saved.getId(), "VERSION-4", "V004", "###test-version-blind");
+        Bus written = underTest.save(blind);
+
+        // Then
+        assertEquals(2L, written.getVersion());
+        assertEquals("###test-version-blind", written.getDescription());
+        assertNotNull(written.getLastModifiedDate());
+        assertEquals(2L, underTest.findById(saved.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void shouldPatchOnlyAtExpectedVersion() {
+        // Given
+        Bus saved = underTest.save(new Bus("VERSION-4", "V004", "###test-version"));
+
+        // When
+        Bus stale = underTest.updateFields(saved.getId(), Map.of("boardNumber", "X"), "tester", 5L);
+        Bus patched = underTest.updateFields(saved.getId(), Map.of("boardNumber", "VERSION-5"), "tester", 0L);
+
+        // Then
+        assertNull(stale);
+        assertNotNull(patched);
+        assertEquals(1L, patched.getVersion());
+    }
+
+    @Test
+    void shouldTreatMissingVersionAsVersionZero() {
+        // Given: two buses written before versioning, without a version field
+        String patchedId = new ObjectId().toHexString();
+        String replacedId = new ObjectId().toHexString();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Bus.class)).insertMany(List.of(
+                new Document("_id", new ObjectId(patchedId)).append("code", "LEG01").append("description", "###test-legacy"),
+                new Document("_id", new ObjectId(replacedId)).append("code", "LEG02").append("description", "###test-legacy")));
+
+        // When
+        Bus stale = underTest.updateFields(patchedId, Map.of("boardNumber", "X"), "tester", 1L);
+        Bus patched = underTest.updateFields(patchedId, Map.of("boardNumber", "LEGACY-1"), "tester", 0L);
+        Bus replacement = new Bus(replacedId, "LEGACY-2", "LEG02", "###test-legacy");
+        replacement.setVersion(0L);
+        Bus replaced = underTest.save(replacement);
+
+        // Then
+        assertNull(stale);
+        assertEquals(1L, patched.getVersion());
+        assertEquals("LEGACY-1", patched.getBoardNumber());
+        assertEquals(1L, replaced.getVersion());
+        assertEquals(1L, underTest.findById(replacedId).orElseThrow().getVersion());
+    }
+
+    @Test
+    void shouldReadOnlyProjectedFields() {
+        // Given
+        Bus saved = underTest.save(new Bus("PROJ-1", "PJ001", "###test-projection"));
+
+        // When
+        Bus found = underTest.findProjectedById(saved.getId(), List.of("code", "boardNumber")).orElseThrow();
+        List<Bus> all = underTest.findAllProjected(List.of("code"));
+        List<Bus> streamed;
+        try (Stream<Bus> buses = underTest.streamProjected(List.of("code"), 2)) {
+            streamed = buses.toList();
+        }
+
+        // Then
+        assertEquals(saved.getId(), found.getId());
+        assertEquals("PJ001", found.getCode());
+        assertEquals("PROJ-1", found.getBoardNumber());
+        assertNull(found.getDescription());
+        assertNull(found.getCreatedDate());
+        assertNull(found.getVersion());
+        assertTrue(all.stream().allMatch(bus -> bus.getId() != null && bus.getDescription() == null));
+        assertEquals(all.size(), streamed.size());
+        assertTrue(streamed.stream().allMatch(bus -> bus.getId() != null && bus.getDescription() == null));
+    }
+
+    @Test
+    void shouldSearchByCodeAndBoardNumberPrefix() {
+        // Given
+        underTest.save(new Bus("SRCH-1 AA", "SR001", "###test-search"));
+        underTest.save(new Bus("SRCH-2 AB", "SR002", "###test-search"));
+        underTest.save(new Bus("SRCX.3 AC", "SR003", "###test-search"));
+
+        // When
+        List<Bus> byCode = underTest.searchPageAfter("SR002", null, null, null, 10);
+        List<Bus> byPrefix = underTest.searchPageAfter(null, "SRCH-", null, null, 10);
+        List<Bus> both = underTest.searchPageAfter("SR003", "SRCH-", null, null, 10);
+        // the prefix is matched literally, "." is not a regex wildcard
+        List<Bus> literal = underTest.searchPageAfter(null, "SRCH.", null, null, 10);
+
+        // Then
+        assertEquals(List.of("SR002"), byCode.stream().map(Bus::getCode).toList());
+        assertEquals(List.of("SR001", "SR002"), byPrefix.stream().map(Bus::getCode).sorted().toList());
+        assertTrue(both.isEmpty());
+        assertTrue(literal.isEmpty());
+    }
+
+    @Test
+    void shouldSearchDescriptionTextPageByPage() {
+        // Given: plain string ids sort before ObjectIds, so a string cursor goes through both branches of idAfter
+        underTest.save(new Bus("TXT-1", "TEXT-1", "TX001", "###test-text articulated trolleybus"));
+        underTest.save(new Bus("TXT-2", "TEXT-2", "TX002", "###test-text articulated tram"));
+        underTest.save(new Bus("TXT-3", "TEXT-3", "TX003", "###test-text minibus"));
+        Bus generated = underTest.save(new Bus("TEXT-4", "TX004", "###test-text articulated coach"));
+
+        // When
+        List<Bus> all = underTest.searchPageAfter(null, null, "articulated", null, 10);
+        List<Bus> afterFirst = underTest.searchPageAfter(null, null, "articulated", "TXT-1", 10);
+        List<Bus> afterGenerated = underTest.searchPageAfter(null, null, "articulated", generated.getId(), 10);
+        List<Bus> withCode = underTest.searchPageAfter("TX002", null, "articulated", null, 10);
+
+        // Then
+        assertEquals(List.of("TX001", "TX002", "TX004"), all.stream().map(Bus::getCode).toList());
+        assertEquals(List.of("TX002", "TX004"), afterFirst.stream().map(Bus::getCode).toList());
+        assertTrue(afterGenerated.isEmpty());
+        assertEquals(List.of("TX002"), withCode.stream().map(Bus::getCode).toList());
+    }
+
+    @Test
+    void shouldDeleteMatchingIdsAndCodePrefixInOneCall() {
+        // Given
+        Bus first = underTest.save(new Bus("DEL-1", "DL001", "###test-delete"));
+        Bus second = underTest.save(new Bus("DEL-2", "DL002", "###test-delete"));
+        Bus other = underTest.save(new Bus("DEL-3", "XX003", "###test-delete"));
+
+        // When
+        long byPrefix = underTest.deleteMatching(null, "DL00", null);
+        long byIds = underTest.deleteMatching(List.of(first.getId(), other.getId()), "XX", null);
+
+        // Then
+        assertEquals(2, byPrefix);
+        assertEquals(1, byIds);
+        assertFalse(underTest.existsById(second.getId()));
+        assertFalse(underTest.existsById(other.getId()));
+    }
 }
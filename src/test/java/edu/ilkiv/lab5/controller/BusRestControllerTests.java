@@ -0,0 +1,328 @@
+package edu.ilkiv.lab5.controller;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusRestControllerTests
+  version 1.0.0
+  @since 18.10.2026 - 14:50
+*/
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import edu.ilkiv.lab5.config.BinaryFormatConfiguration;
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
+import edu.ilkiv.lab5.exception.InvalidFieldsException;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
+import edu.ilkiv.lab5.request.BusUpdateRequest;
+import edu.ilkiv.lab5.response.BusBatch;
+import edu.ilkiv.lab5.response.BusPage;
+import edu.ilkiv.lab5.service.BusService;
+import edu.ilkiv.lab5.service.IdempotencyService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(BusRestController.class)
+@Import(BinaryFormatConfiguration.class)
+class BusRestControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private BusService busService;
+
+    @MockitoBean
+    private IdempotencyService idempotencyService;
+
+    private Bus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new Bus("1", "1234 CE", "000001", "description1");
+        bus.setLastModifiedDate(LocalDateTime.of(2026, 10, 18, 12, 0));
+        given(busService.getById("1")).willReturn(bus);
+        // no stored result: every request runs its action
+        given(idempotencyService.execute(any(), any(), any(), eq(Bus.class), any()))
+                .willAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+        given(idempotencyService.executeList(any(), any(), any(), any(), any()))
+                .willAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+    }
+
+    @Test
+    @DisplayName("GET by id should return the bus with an ETag")
+    void testShowOneByIdReturnsETag() throws Exception {
+        mockMvc.perform(get("/api/v1/buses/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.code").value("000001"));
+    }
+
+    @Test
+    @DisplayName("GET by id should answer 304 when If-None-Match matches")
+    void testShowOneByIdReturnsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/buses/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/buses/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("GET by id should return a new ETag once the bus is modified")
+    void testShowOneByIdChangesETagAfterModification() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/buses/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // the first write of a bus stored before versioning gives it version 1
+        bus.setLastModifiedDate(LocalDateTime.of(2026, 10, 18, 12, 5));
+        bus.setVersion(1L);
+
+        mockMvc.perform(get("/api/v1/buses/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    @DisplayName("GET by id should use the version as ETag")
+    void testShowOneByIdUsesVersionAsETag() throws Exception {
+        bus.setVersion(7L);
+
+        mockMvc.perform(get("/api/v1/buses/1"))
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"7-")));
+    }
+
+    @Test
+    @DisplayName("GET by id should tag a bus stored before versioning as version 0")
+    void testShowOneByIdTagsUnversionedBusAsVersionZero() throws Exception {
+        mockMvc.perform(get("/api/v1/buses/1"))
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"0-")));
+    }
+
+    @Test
+    @DisplayName("A bus still parked by the write-behind buffer should go out without an ETag")
+    void testShowOneByIdSendsNoETagForParkedBus() throws Exception {
+        bus.setParked(true);
+
+        mockMvc.perform(get("/api/v1/buses/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.parked").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Buses at the same version should get different ETags")
+    void testSameVersionOfOtherBusGetsOtherETag() throws Exception {
+        bus.setVersion(0L);
+        Bus other = new Bus("2", "4323 AE", "000002", "description2");
+        other.setVersion(0L);
+        other.setLastModifiedDate(bus.getLastModifiedDate());
+        given(busService.getById("2")).willReturn(other);
+        String etag = mockMvc.perform(get("/api/v1/buses/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/v1/buses/2").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    @DisplayName("PUT should take the version from an ETag sent back in If-Match")
+    void testEditReadsVersionFromETag() throws Exception {
+        bus.setVersion(7L);
+        String etag = mockMvc.perform(get("/api/v1/buses/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        given(busService.update(any(BusUpdateRequest.class), eq(7L))).willReturn(bus);
+
+        mockMvc.perform(put("/api/v1/buses/dto")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .content("{\"id\":\"1\",\"boardNumber\":\"1234 CE\",\"code\":\"000001\",\"description\":\"d\"}"))
+                .andExpect(status().isOk());
+
+        verify(busService).update(any(BusUpdateRequest.class), eq(7L));
+    }
+
+    @Test
+    @DisplayName("PUT should pass the If-Match version to the service")
+    void testEditPassesIfMatchVersion() throws Exception {
+        given(busService.update(any(BusUpdateRequest.class), eq(7L))).willReturn(bus);
+
+        mockMvc.perform(put("/api/v1/buses/dto")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"7\"")
+                        .content("{\"id\":\"1\",\"boardNumber\":\"1234 CE\",\"code\":\"000001\",\"description\":\"d\"}"))
+                .andExpect(status().isOk());
+
+        verify(busService).update(any(BusUpdateRequest.class), eq(7L));
+    }
+
+    @Test
+    @DisplayName("PATCH should answer 412 when the version does not match")
+    void testPatchReturnsPreconditionFailedOnConflict() throws Exception {
+        given(busService.patch(eq("1"), any(BusPatchRequest.class), eq(3L)))
+                .willThrow(new BusVersionConflictException("1"));
+
+        mockMvc.perform(patch("/api/v1/buses/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .content("{\"description\":\"d\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("A code taken by another bus should be answered with 409")
+    void testDuplicateCodeReturnsConflict() throws Exception {
+        given(busService.patch(eq("1"), any(BusPatchRequest.class), any()))
+                .willThrow(new DuplicateKeyException("E11000 duplicate key error"));
+
+        mockMvc.perform(patch("/api/v1/buses/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"code\":\"000002\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.detail").value("A bus with this code already exists"));
+    }
+
+    @Test
+    @DisplayName("PATCH should answer 412 for an If-Match that is not a version")
+    void testPatchReturnsPreconditionFailedForForeignETag() throws Exception {
+        mockMvc.perform(patch("/api/v1/buses/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                        .content("{\"description\":\"d\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("GET by id with fields should return only those fields and no ETag")
+    void testShowOneByIdWithFieldsOmitsOtherFields() throws Exception {
+        given(busService.getById("1", "code")).willReturn(new Bus("1", null, "000001", null));
+
+        mockMvc.perform(get("/api/v1/buses/1").param("fields", "code"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.code").value("000001"))
+                .andExpect(jsonPath("$.description").doesNotExist())
+                .andExpect(jsonPath("$.lastModifiedDate").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET by id with blank fields should return the whole bus with its ETag")
+    void testShowOneByIdWithBlankFieldsReturnsWholeBus() throws Exception {
+        Bus bus = new Bus("1", "1234 CE", "000001", "description1");
+        bus.setVersion(3L);
+        given(busService.getById("1")).willReturn(bus);
+
+        mockMvc.perform(get("/api/v1/buses/1").param("fields", " "))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"3-")))
+                .andExpect(jsonPath("$.description").value("description1"));
+    }
+
+    @Test
+    @DisplayName("GET with an unknown field should answer 400")
+    void testShowAllRejectsUnknownField() throws Exception {
+        given(busService.getAll("colour")).willThrow(new InvalidFieldsException("colour"));
+
+        mockMvc.perform(get("/api/v1/buses/").param("fields", "colour"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET search should return a page of matching buses")
+    void testSearch() throws Exception {
+        given(busService.search(null, "1234", null, null, 10))
+                .willReturn(new BusPage(List.of(new Bus("1", "1234 CE", "000001", "description1")), null, false));
+
+        mockMvc.perform(get("/api/v1/buses/search").param("boardNumber", "1234").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].code").value("000001"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    @DisplayName("GET by id with Accept: application/cbor should return the JSON shape as CBOR")
+    void testShowOneByIdAsCbor() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/v1/buses/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode tree = new CBORMapper().readTree(body);
+        assertEquals("000001", tree.get("code").asText());
+        assertEquals("2026-10-18T12:00:00", tree.get("lastModifiedDate").asText());
+    }
+
+    @Test
+    @DisplayName("POST dto as Smile should be read and answered in Smile")
+    void testInsertAsSmile() throws Exception {
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+        BusCreateRequest request = new BusCreateRequest("5555 AA", "000004", "description4");
+        given(busService.create(request)).willReturn(new Bus("4", "5555 AA", "000004", "description4"));
+
+        byte[] body = mockMvc.perform(post("/api/v1/buses/dto")
+                        .contentType(smile)
+                        .accept(smile)
+                        .content(new SmileMapper().writeValueAsBytes(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals("4", new SmileMapper().readTree(body).get("id").asText());
+    }
+
+    @Test
+    @DisplayName("POST batch should return the found buses and the missing ids")
+    void testShowBatch() throws Exception {
+        given(busService.getByIds(List.of("1", "404"))).willReturn(new BusBatch(List.of(bus), List.of("404")));
+
+        mockMvc.perform(post("/api/v1/buses/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"1\", \"404\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value("1"))
+                .andExpect(jsonPath("$.missing[0]").value("404"));
+    }
+
+    @Test
+    @DisplayName("POST dto should hand the Idempotency-Key to the idempotency service")
+    void testInsertPassesIdempotencyKey() throws Exception {
+        BusCreateRequest request = new BusCreateRequest("5555 AA", "000004", "description4");
+        given(busService.create(request)).willReturn(new Bus("4", "5555 AA", "000004", "description4"));
+
+        mockMvc.perform(post("/api/v1/buses/dto")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"boardNumber\":\"5555 AA\",\"code\":\"000004\",\"description\":\"description4\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("4"));
+
+        verify(idempotencyService).execute(eq("retry-1"), eq("POST /dto"), eq(request), eq(Bus.class), any());
+    }
+}
@@ -0,0 +1,97 @@
+package edu.ilkiv.lab5.repository;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusQueryPlanAdvisorTests
+  version 1.0.0
+  @since 18.10.2026 - 22:20
+*/
+
+import com.mongodb.client.MongoDatabase;
+import edu.ilkiv.lab5.model.Bus;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BusQueryPlanAdvisorTests {
+
+    private MongoTemplate mongoTemplate;
+    private MongoDatabase database;
+    private BusQueryPlanAdvisor underTest;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        database = mock(MongoDatabase.class);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        given(mongoTemplate.getConverter())
+                .willReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        given(mongoTemplate.getCollectionName(Bus.class)).willReturn("bus");
+        given(mongoTemplate.getDb()).willReturn(database);
+        underTest = new BusQueryPlanAdvisor(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Probe filters should cover the derived and @Query methods but not save/saveAll")
+    void testProbeFilters() {
+        Map<String, Document> filters = underTest.probeFilters();
+
+        assertThat(filters).containsOnlyKeys("existsByCode", "findCodesIn");
+        assertThat(filters.get("existsByCode")).isEqualTo(new Document("code", "probe"));
+        assertThat(filters.get("findCodesIn"))
+                .isEqualTo(new Document("code", new Document("$in", List.of("probe"))));
+    }
+
+    @Test
+    @DisplayName("A COLLSCAN anywhere in the winning plan should be reported")
+    void testScansCollection() {
+        Document indexed = new Document("winningPlan", new Document("stage", "FETCH")
+                .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "code")));
+        Document scanned = new Document("winningPlan", new Document("stage", "SUBPLAN")
+                .append("inputStages", List.of(new Document("stage", "COLLSCAN"))));
+
+        assertThat(BusQueryPlanAdvisor.scansCollection(indexed)).isFalse();
+        assertThat(BusQueryPlanAdvisor.scansCollection(scanned)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Fail mode should refuse to start when a query runs as a COLLSCAN")
+    void testFailModeThrowsOnCollectionScan() {
+        given(database.runCommand(any(Bson.class))).willReturn(new Document("queryPlanner",
+                new Document("winningPlan", new Document("stage", "COLLSCAN"))));
+        ReflectionTestUtils.setField(underTest, "mode", BusQueryPlanAdvisor.Mode.FAIL);
+
+        assertThatThrownBy(() -> underTest.adviseOnStartup())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("existsByCode");
+    }
+
+    @Test
+    @DisplayName("Off mode should not explain anything")
+    void testOffModeDoesNothing() {
+        underTest.adviseOnStartup();
+
+        verify(database, never()).runCommand(any(Bson.class));
+    }
+}
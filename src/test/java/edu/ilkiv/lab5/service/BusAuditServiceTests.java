@@ -0,0 +1,141 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusAuditServiceTests
+  version 1.0.0
+  @since 19.10.2026 - 11:30
+*/
+
+import edu.ilkiv.lab5.model.BusAuditAction;
+import edu.ilkiv.lab5.model.BusAuditEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BusAuditServiceTests {
+
+    private static final BusAuditEntry.State AFTER = new BusAuditEntry.State("1234 CE", "000001", "description1", 0L);
+
+    private MongoTemplate mongoTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private BusAuditService underTest;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = auditService(Map.of("mongoTemplate", mongoTemplate));
+    }
+
+    private BusAuditService auditService(Map<String, Object> templates) {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        templates.forEach(beans::registerSingleton);
+        BusAuditService auditService = new BusAuditService(beans.getBeanProvider(MongoTemplate.class),
+                beans.getBeanProvider(ReactiveMongoTemplate.class), meterRegistry, 3);
+        ReflectionTestUtils.setField(auditService, "batchSize", 2);
+        ReflectionTestUtils.setField(auditService, "flushInterval", Duration.ofMillis(50));
+        return auditService;
+    }
+
+    private double entries(String outcome) {
+        return meterRegistry.get("bus.audit.entries").tag("outcome", outcome).counter().count();
+    }
+
+    private void recordCreate(String id) {
+        underTest.record(BusAuditAction.CREATE, id, "tester", null, AFTER, null);
+    }
+
+    @Test
+    @DisplayName("Recording should only queue the entry, the insert happens later")
+    void testRecordDoesNotWrite() {
+        recordCreate("1");
+
+        verify(mongoTemplate, never()).insertAll(anyCollection());
+        assertThat(meterRegistry.get("bus.audit.queue.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A full queue should drop new entries and count them instead of blocking")
+    void testFullQueueDropsEntries() {
+        for (int i = 0; i < 5; i++) {
+            recordCreate(String.valueOf(i));
+        }
+
+        assertThat(entries("dropped")).isEqualTo(2);
+        assertThat(meterRegistry.get("bus.audit.queue.size").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Stop should flush what is still queued in batches of batch-size")
+    void testStopFlushesInBatches() throws InterruptedException {
+        recordCreate("1");
+        recordCreate("2");
+        recordCreate("3");
+
+        underTest.stop();
+
+        verify(mongoTemplate, times(2)).insertAll(anyCollection());
+        assertThat(entries("written")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("A failed insert should count its entries as failed and not break the writer")
+    void testFailedInsertIsCounted() throws InterruptedException {
+        given(mongoTemplate.insertAll(anyCollection())).willThrow(new DataAccessResourceFailureException("mongo down"));
+        recordCreate("1");
+
+        underTest.stop();
+
+        assertThat(entries("failed")).isEqualTo(1);
+        assertThat(entries("written")).isZero();
+    }
+
+    @Test
+    @DisplayName("The background writer should flush a partial batch after the flush interval")
+    void testWriterFlushesAfterInterval() throws InterruptedException {
+        underTest.start();
+        recordCreate("1");
+
+        verify(mongoTemplate, timeout(2000)).insertAll(anyCollection());
+        underTest.stop();
+        assertThat(entries("written")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Without a blocking template the batches should go through the reactive one")
+    void testReactiveTemplateIsUsedWithoutBlockingOne() throws InterruptedException {
+        // given: the "reactive" profile has no blocking client
+        ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        given(reactiveMongoTemplate.insertAll(anyCollection())).willReturn(Flux.empty());
+        underTest = auditService(Map.of("reactiveMongoTemplate", reactiveMongoTemplate));
+        recordCreate("1");
+
+        // when
+        underTest.stop();
+
+        // then
+        verify(reactiveMongoTemplate).insertAll(anyCollection());
+        assertThat(entries("written")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,77 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusCacheSyncServiceTests
+  version 1.0.0
+  @since 18.10.2026 - 13:40
+*/
+
+import com.mongodb.client.model.Filters;
+import edu.ilkiv.lab5.model.Bus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// MongoDBContainer runs a single-node replica set, which change streams require
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "bus.cache.change-stream.enabled=true",
+        "bus.cache.change-stream.node-id=test-node",
+        "bus.cache.change-stream.token-save-interval=0s"
+})
+class BusCacheSyncServiceTests {
+
+    @Container
+    @ServiceConnection
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Autowired
+    private BusService busService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Test
+    @DisplayName("A write made outside this node should evict the cached bus")
+    void testExternalUpdateEvictsCachedBus() {
+        // given
+        Bus bus = busService.create(new Bus("SYNC-1", "S0001", "before"));
+        assertThat(busService.getById(bus.getId()).getDescription()).isEqualTo("before");
+
+        // when
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(bus.getId())),
+                Update.update("description", "after"), Bus.class);
+
+        // then
+        await().atMost(Duration.ofSeconds(10))
+                .untilAsserted(() -> assertThat(busService.getById(bus.getId()).getDescription()).isEqualTo("after"));
+    }
+
+    @Test
+    @DisplayName("The resume token of the last seen event should be stored for this node")
+    void testResumeTokenIsStored() {
+        // when
+        busService.create(new Bus("SYNC-2", "S0002", "token"));
+
+        // then
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> mongoTemplate.getCollection("busChangeStreamTokens")
+                        .find(Filters.eq("_id", "test-node")).first() != null);
+    }
+}
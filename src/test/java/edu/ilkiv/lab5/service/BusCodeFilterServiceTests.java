@@ -0,0 +1,105 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusCodeFilterServiceTests
+  version 1.0.0
+  @since 19.10.2026 - 15:50
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.repository.BusRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class BusCodeFilterServiceTests {
+
+    private BusRepository mockRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private BusCodeFilterService underTest;
+
+    @BeforeEach
+    void setUp() {
+        mockRepository = mock(BusRepository.class);
+        given(mockRepository.streamProjected(anyCollection(), anyInt())).willAnswer(invocation -> Stream.of(
+                new Bus("1", "1234 CE", "000001", null),
+                new Bus("2", "4323 AE", "000002", null)));
+        meterRegistry = new SimpleMeterRegistry();
+        underTest = new BusCodeFilterService(mockRepository, meterRegistry);
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("bus.code.filter.checks").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Before it is loaded every code should be a possible positive")
+    void testUnloadedFilterRulesOutNothing() {
+        assertThat(underTest.mightExist("000999")).isTrue();
+        assertThat(checks("negative")).isZero();
+    }
+
+    @Test
+    @DisplayName("A loaded filter should keep stored and added codes and rule out the others")
+    void testLoadedFilterAnswersFromMemory() {
+        underTest.load();
+        underTest.add("000003");
+
+        assertThat(underTest.mightExist("000001")).isTrue();
+        assertThat(underTest.mightExist("000003")).isTrue();
+        assertThat(underTest.mightExist("000999")).isFalse();
+        assertThat(checks("negative")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Mongo answers for possible positives should feed the false-positive counters")
+    void testConfirmedCountsFalsePositives() {
+        underTest.load();
+
+        underTest.confirmed(List.of("000001", "000002", "000004"), List.of("000001", "000002"));
+
+        assertThat(checks("true-positive")).isEqualTo(2);
+        assertThat(checks("false-positive")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A false-positive rate over the limit should rebuild the filter from Mongo")
+    void testHighFalsePositiveRateRebuilds() {
+        ReflectionTestUtils.setField(underTest, "rebuildMinChecks", 10L);
+        underTest.load();
+
+        underTest.confirmed(IntStream.range(0, 10).mapToObj(i -> "gone" + i).toList(), List.of());
+
+        verify(mockRepository, timeout(2000).times(2)).streamProjected(anyCollection(), anyInt());
+    }
+
+    @Test
+    @DisplayName("With the default sizing the Bloom filter should stay near its false-positive target")
+    void testBloomFilterFalsePositiveRate() {
+        BusCodeBloomFilter filter = BusCodeBloomFilter.create(10000, 0.01);
+        IntStream.range(0, 10000).forEach(i -> filter.put(String.format("%06d", i)));
+
+        long falsePositives = IntStream.range(10000, 110000)
+                .filter(i -> filter.mightContain(String.format("%06d", i)))
+                .count();
+
+        assertThat(IntStream.range(0, 10000).allMatch(i -> filter.mightContain(String.format("%06d", i)))).isTrue();
+        assertThat(falsePositives / 100000.0).isLessThan(0.02);
+    }
+}
@@ -0,0 +1,86 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusSeedServiceTests
+  version 1.0.0
+  @since 19.10.2026 - 17:10
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.repository.BusRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BusSeedServiceTests {
+
+    private BusRepository mockRepository;
+    private BusCodeFilterService codeFilter;
+    private List<Runnable> submitted;
+    private BusSeedService underTest;
+
+    @BeforeEach
+    void setUp() {
+        mockRepository = mock(BusRepository.class);
+        codeFilter = new BusCodeFilterService(mockRepository, new SimpleMeterRegistry());
+        submitted = new ArrayList<>();
+        underTest = new BusSeedService(mockRepository, codeFilter, submitted::add, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("The sample buses should be the three known ones")
+    void testSeedsAreTheSampleBuses() {
+        assertThat(underTest.seeds()).extracting(Bus::getId).containsExactly("1", "2", "3");
+        assertThat(underTest.seeds()).extracting(Bus::getBoardNumber)
+                .containsExactly("1234 CE", "4323 AE", "9423 MO");
+    }
+
+    @Test
+    @DisplayName("Seeding should be handed to the executor instead of running on the startup thread")
+    void testSeedRunsOffStartupThread() {
+        // when
+        underTest.seedInBackground();
+
+        // then
+        verify(mockRepository, never()).insertMissing(anyList());
+        assertThat(submitted).hasSize(1);
+
+        // when the executor runs it
+        submitted.get(0).run();
+
+        // then
+        verify(mockRepository).insertMissing(underTest.seeds());
+    }
+
+    @Test
+    @DisplayName("Seeding should insert only missing buses and never save over stored ones")
+    void testSeedIsInsertOnly() {
+        underTest.seed();
+
+        verify(mockRepository).insertMissing(underTest.seeds());
+        verify(mockRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("A failed seed should be logged, not thrown")
+    void testFailedSeedDoesNotThrow() {
+        given(mockRepository.insertMissing(anyList())).willThrow(new IllegalStateException("mongo down"));
+
+        underTest.seed();
+
+        verify(mockRepository).insertMissing(underTest.seeds());
+    }
+}
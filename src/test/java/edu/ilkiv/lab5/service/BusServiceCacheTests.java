@@ -0,0 +1,155 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusServiceCacheTests
+  version 1.0.0
+  @since 18.10.2026 - 12:25
+*/
+
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.repository.BusRepository;
+import edu.ilkiv.lab5.request.BusDeleteRequest;
+import edu.ilkiv.lab5.request.BusUpdateRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+class BusServiceCacheTests {
+
+    @MockitoBean
+    private BusRepository mockRepository;
+
+    @Autowired
+    private BusService underTest;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private BusWriteBehindService busWriteBehind;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache("buses").clear();
+    }
+
+    @Test
+    @DisplayName("GetById should read the repository only once for repeated calls")
+    void testGetByIdIsServedFromCache() {
+        // given
+        Bus bus = new Bus("21", "2121 AA", "000021", "description21");
+        given(mockRepository.findById("21")).willReturn(Optional.of(bus));
+
+        // when
+        underTest.getById("21");
+        Bus result = underTest.getById("21");
+
+        // then
+        assertThat(result).isEqualTo(bus);
+        verify(mockRepository, times(1)).findById("21");
+    }
+
+    @Test
+    @DisplayName("GetById should not cache missing buses")
+    void testGetByIdDoesNotCacheMisses() {
+        // given
+        given(mockRepository.findById("22")).willReturn(Optional.empty());
+
+        // when
+        underTest.getById("22");
+        underTest.getById("22");
+
+        // then
+        verify(mockRepository, times(2)).findById("22");
+    }
+
+    @Test
+    @DisplayName("Update should refresh the cached bus")
+    void testUpdateRefreshesCache() {
+        // given
+        Bus bus = new Bus("23", "2323 AA", "000023", "old description");
+        Bus updated = new Bus("23", "2323 AA", "000023", "new description");
+        given(mockRepository.findById("23")).willReturn(Optional.of(bus));
+        given(mockRepository.save(any(Bus.class))).willReturn(updated);
+        underTest.getById("23");
+
+        // when
+        underTest.update(new BusUpdateRequest("23", "2323 AA", "000023", "new description"));
+        Bus result = underTest.getById("23");
+
+        // then
+        assertThat(result.getDescription()).isEqualTo("new description");
+    }
+
+    @Test
+    @DisplayName("DelById should evict the cached bus")
+    void testDelByIdEvictsCache() {
+        // given
+        Bus bus = new Bus("24", "2424 AA", "000024", "description24");
+        given(mockRepository.findById("24")).willReturn(Optional.of(bus));
+        underTest.getById("24");
+
+        // when
+        underTest.delById("24");
+        underTest.getById("24");
+
+        // then
+        verify(mockRepository, times(2)).findById("24");
+    }
+
+    @Test
+    @DisplayName("DeleteAll should evict every cached bus in one pass")
+    void testDeleteAllClearsCache() {
+        // given
+        given(mockRepository.findById("25")).willReturn(Optional.of(new Bus("25", "2525 AA", "000025", "description25")));
+        given(mockRepository.findById("26")).willReturn(Optional.of(new Bus("26", "2626 AA", "000026", "description26")));
+        given(mockRepository.deleteMatching(null, "0000", null)).willReturn(2L);
+        underTest.getById("25");
+        underTest.getById("26");
+
+        // when
+        underTest.deleteAll(new BusDeleteRequest(null, "0000", null));
+        underTest.getById("25");
+        underTest.getById("26");
+
+        // then
+        verify(mockRepository, times(2)).findById("25");
+        verify(mockRepository, times(2)).findById("26");
+    }
+    @Test
+    @DisplayName("A parked write-behind update should evict the cached bus and never be cached itself")
+    void testParkedUpdateIsNotCached() {
+        // given
+        given(mockRepository.findById("27")).willReturn(Optional.of(new Bus("27", "2727 AA", "000027", "stored")));
+        underTest.getById("27");
+        ReflectionTestUtils.setField(busWriteBehind, "enabled", true);
+        try {
+            // when
+            underTest.update(new Bus("27", "2727 AA", "000027", "parked"));
+            Bus result = underTest.getById("27");
+
+            // then
+            assertThat(result.getDescription()).isEqualTo("parked");
+            assertThat(cacheManager.getCache("buses").get("27")).isNull();
+        } finally {
+            busWriteBehind.discardAndDelete("27", () -> null);
+            ReflectionTestUtils.setField(busWriteBehind, "enabled", false);
+        }
+    }
+}
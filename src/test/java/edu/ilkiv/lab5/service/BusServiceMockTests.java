@@ -1,22 +1,52 @@
 package edu.ilkiv.lab5.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import edu.ilkiv.lab5.exception.BatchTooLargeException;
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
+import edu.ilkiv.lab5.exception.EmptyDeleteFilterException;
+import edu.ilkiv.lab5.exception.InvalidCursorException;
+import edu.ilkiv.lab5.exception.InvalidFieldsException;
 import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.model.BusAuditAction;
+import edu.ilkiv.lab5.model.BusAuditEntry;
 import edu.ilkiv.lab5.repository.BusRepository;
 import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusDeleteRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
 import edu.ilkiv.lab5.request.BusUpdateRequest;
+import edu.ilkiv.lab5.response.BusBatch;
+import edu.ilkiv.lab5.response.BusBulkResult;
+import edu.ilkiv.lab5.response.BusBulkStatus;
+import edu.ilkiv.lab5.response.BusDeleteResult;
+import edu.ilkiv.lab5.response.BusPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
-
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +59,9 @@ class BusServiceTests {
     @Mock
     private BusRepository mockRepository;
 
+    @Mock
+    private BusAuditService mockAuditService;
+
     private BusService underTest;
 
     @Captor
@@ -43,7 +76,9 @@ class BusServiceTests {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        underTest = new BusService(mockRepository);
+        underTest = new BusService(mockRepository, () -> Optional.of("tester"), mockAuditService,
+                new BusWriteBehindService(mockRepository, new ConcurrentMapCacheManager(), new SimpleMeterRegistry(), 10),
+                new BusCodeFilterService(mockRepository, new SimpleMeterRegistry()), new ObjectMapper());
 
         // Create test buses
         testBus1 = new Bus("1", "1234 CE", "000001", "description1");
@@ -60,16 +95,6 @@ class BusServiceTests {
         // No need to clean up with mocks
     }
 
-    @Test
-    @DisplayName("Test initializing buses on startup")
-    void testInitMethodSavesBusesToRepository() {
-        // when
-        underTest.init();
-
-        // then
-        verify(mockRepository).saveAll(anyList());
-    }
-
     @Test
     @DisplayName("GetAll should return all buses from repository")
     void testGetAllReturnsBusesFromRepository() {
@@ -170,7 +195,7 @@ class BusServiceTests {
         underTest.delById(id);
 
         // then
-        verify(mockRepository).deleteById(id);
+        verify(mockRepository).findAndRemoveById(id);
     }
 
     @Test
@@ -291,7 +316,7 @@ class BusServiceTests {
         underTest.delById(id);
 
         // then
-        verify(mockRepository, times(1)).deleteById(id);
+        verify(mockRepository, times(1)).findAndRemoveById(id);
     }
 
     @Test
@@ -368,26 +393,6 @@ class BusServiceTests {
         verify(mockRepository).findById(id);
     }
 
-    @Test
-    @DisplayName("Initial bus list should contain three elements")
-    void testInitialBusListHasThreeElements() {
-        // when
-        List<Bus> initialBuses = underTest.buses;
-
-        // then
-        assertThat(initialBuses).hasSize(3);
-    }
-
-    @Test
-    @DisplayName("PostConstruct init method should call saveAll")
-    void testPostConstructInitMethodCallsSaveAll() {
-        // when
-        underTest.init();
-
-        // then
-        verify(mockRepository).saveAll(underTest.buses);
-    }
-
     @Test
     @DisplayName("Service should handle null input when getting bus by id")
     void testGetByIdHandlesNullInput() {
@@ -399,18 +404,6 @@ class BusServiceTests {
         verify(mockRepository).findById(null);
     }
 
-    @Test
-    @DisplayName("Test initial bus list has expected board numbers")
-    void testInitialBusListHasExpectedBoardNumbers() {
-        // when
-        List<String> boardNumbers = underTest.buses.stream()
-                .map(Bus::getBoardNumber)
-                .toList();
-
-        // then
-        assertThat(boardNumbers).containsExactly("1234 CE", "4323 AE", "9423 MO");
-    }
-
     @Test
     @DisplayName("Test create returns bus with all fields set correctly")
     void testCreateReturnsBusWithCorrectFields() {
@@ -461,9 +454,474 @@ class BusServiceTests {
     void testDelByIdDoesNothingForNonExistentId() {
         // given
         String nonExistentId = "999";
-        doThrow(new RuntimeException("ID not found")).when(mockRepository).deleteById(nonExistentId);
+        given(mockRepository.findAndRemoveById(nonExistentId)).willThrow(new RuntimeException("ID not found"));
 
         // when & then
         assertThrows(RuntimeException.class, () -> underTest.delById(nonExistentId));
     }
+
+    @Test
+    @DisplayName("GetPage should fetch one extra bus to detect the next page")
+    void testGetPageReturnsCursorWhenMoreBusesExist() {
+        // given
+        given(mockRepository.findPageAfter(null, 3)).willReturn(List.of(testBus1, testBus2, testBus3));
+
+        // when
+        BusPage page = underTest.getPage(null, 2);
+
+        // then
+        assertThat(page.items()).containsExactly(testBus1, testBus2);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(page.nextCursor()).isNotBlank();
+    }
+
+    @Test
+    @DisplayName("GetPage should continue after the id encoded in the cursor")
+    void testGetPageContinuesFromCursor() {
+        // given
+        given(mockRepository.findPageAfter(null, 3)).willReturn(List.of(testBus1, testBus2, testBus3));
+        String cursor = underTest.getPage(null, 2).nextCursor();
+        given(mockRepository.findPageAfter("2", 3)).willReturn(List.of(testBus3));
+
+        // when
+        BusPage page = underTest.getPage(cursor, 2);
+
+        // then
+        assertThat(page.items()).containsExactly(testBus3);
+        assertThat(page.hasMore()).isFalse();
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("GetPage should reject a cursor that is not valid base64")
+    void testGetPageRejectsMalformedCursor() {
+        assertThrows(InvalidCursorException.class, () -> underTest.getPage("not base64!", 2));
+    }
+
+    @Test
+    @DisplayName("StreamAll should delegate to the repository cursor")
+    void testStreamAllUsesRepositoryCursor() {
+        // given
+        given(mockRepository.streamAll(anyInt())).willReturn(Stream.of(testBus1, testBus2));
+
+        // when
+        List<Bus> result;
+        try (Stream<Bus> buses = underTest.streamAll()) {
+            result = buses.toList();
+        }
+
+        // then
+        assertThat(result).containsExactly(testBus1, testBus2);
+        verify(mockRepository).streamAll(500);
+    }
+
+    @Test
+    @DisplayName("Export should write one json line per bus")
+    void testExportWritesNewlineDelimitedJson() throws IOException {
+        // given
+        given(mockRepository.streamAll(anyInt())).willReturn(Stream.of(testBus1, testBus2));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        underTest.export(out);
+
+        // then
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"id\":\"1\"");
+        assertThat(lines.get(1)).contains("\"id\":\"2\"");
+    }
+
+    @Test
+    @DisplayName("CreateAll should skip codes that already exist or repeat in the batch")
+    void testCreateAllReportsDuplicates() {
+        // given
+        List<BusCreateRequest> requests = List.of(
+                new BusCreateRequest("1234 CE", "000001", "taken"),
+                new BusCreateRequest("5555 AA", "000004", "new"),
+                new BusCreateRequest("6666 BB", "000004", "repeated"));
+        given(mockRepository.findCodesIn(anyList())).willReturn(List.of(testBus1));
+        given(mockRepository.insertUnordered(anyList())).willReturn(List.of());
+
+        // when
+        List<BusBulkResult> results = underTest.createAll(requests);
+
+        // then
+        assertThat(results).extracting(BusBulkResult::status)
+                .containsExactly(BusBulkStatus.DUPLICATE, BusBulkStatus.CREATED, BusBulkStatus.DUPLICATE);
+        assertThat(results.get(1).bus().getId()).isNotNull();
+        verify(mockRepository, times(1)).insertUnordered(argThat(buses -> buses.size() == 1));
+        verify(mockRepository, never()).existsByCode(anyString());
+    }
+
+    @Test
+    @DisplayName("CreateAll should create every bus without a code and leave them out of the code lookup")
+    void testCreateAllCreatesBusesWithoutCode() {
+        // given
+        List<BusCreateRequest> requests = List.of(
+                new BusCreateRequest("1111 AA", null, "no code"),
+                new BusCreateRequest("2222 BB", null, "no code either"),
+                new BusCreateRequest("3333 CC", "000103", "with code"));
+        given(mockRepository.findCodesIn(anyList())).willReturn(List.of());
+        given(mockRepository.insertUnordered(anyList())).willReturn(List.of());
+
+        // when
+        List<BusBulkResult> results = underTest.createAll(requests);
+
+        // then
+        assertThat(results).extracting(BusBulkResult::status)
+                .containsExactly(BusBulkStatus.CREATED, BusBulkStatus.CREATED, BusBulkStatus.CREATED);
+        verify(mockRepository).findCodesIn(List.of("000103"));
+        verify(mockRepository).insertUnordered(argThat(buses -> buses.size() == 3));
+    }
+
+    @Test
+    @DisplayName("CreateAll should only look up the codes the loaded code filter cannot rule out")
+    void testCreateAllSkipsCodesRuledOutByFilter() {
+        // given: the filter holds the stored codes
+        BusCodeFilterService codeFilter = new BusCodeFilterService(mockRepository, new SimpleMeterRegistry());
+        given(mockRepository.streamProjected(anyCollection(), anyInt())).willAnswer(invocation -> Stream.of(testBus1));
+        codeFilter.load();
+        BusService service = new BusService(mockRepository, () -> Optional.of("tester"), mockAuditService,
+                new BusWriteBehindService(mockRepository, new ConcurrentMapCacheManager(), new SimpleMeterRegistry(), 10), codeFilter, new ObjectMapper());
+        given(mockRepository.findCodesIn(anyList())).willReturn(List.of(testBus1));
+        given(mockRepository.insertUnordered(anyList())).willReturn(List.of());
+
+        // when: only new codes
+        service.createAll(List.of(new BusCreateRequest("7777 AA", "000107", "new")));
+
+        // then
+        verify(mockRepository, never()).findCodesIn(anyList());
+
+        // when: a stored code among new ones
+        List<BusBulkResult> results = service.createAll(List.of(
+                new BusCreateRequest("1234 CE", "000001", "taken"),
+                new BusCreateRequest("8888 AA", "000108", "new")));
+
+        // then
+        verify(mockRepository).findCodesIn(List.of("000001"));
+        assertThat(results).extracting(BusBulkResult::status)
+                .containsExactly(BusBulkStatus.DUPLICATE, BusBulkStatus.CREATED);
+    }
+
+    @Test
+    @DisplayName("CreateAll should map bulk write errors back to request positions")
+    void testCreateAllMapsWriteErrors() {
+        // given
+        List<BusCreateRequest> requests = List.of(
+                new BusCreateRequest("1111 AA", "000101", "first"),
+                new BusCreateRequest("2222 BB", "000102", "second"));
+        given(mockRepository.findCodesIn(anyList())).willReturn(List.of());
+        given(mockRepository.insertUnordered(anyList())).willReturn(List.of(
+                new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0),
+                new BulkWriteError(2, "bad value", new BsonDocument(), 1)));
+
+        // when
+        List<BusBulkResult> results = underTest.createAll(requests);
+
+        // then
+        assertThat(results).extracting(BusBulkResult::status)
+                .containsExactly(BusBulkStatus.DUPLICATE, BusBulkStatus.FAILED);
+        assertThat(results.get(1).error()).isEqualTo("bad value");
+    }
+
+    @Test
+    @DisplayName("Create should return null when the unique code index rejects the insert")
+    void testCreateReturnsNullOnDuplicateKey() {
+        // given
+        given(mockRepository.save(any(Bus.class))).willThrow(new DuplicateKeyException("E11000 duplicate key"));
+
+        // when
+        Bus result = underTest.create(createRequest);
+
+        // then
+        assertNull(result);
+        verify(mockRepository, never()).existsByCode(anyString());
+    }
+
+    @Test
+    @DisplayName("Patch should set only the supplied fields")
+    void testPatchSetsOnlySuppliedFields() {
+        // given
+        Bus patched = new Bus("1", "1234 CE", "000001", "patched");
+        given(mockRepository.updateFields(eq("1"), anyMap(), eq("tester"), isNull())).willReturn(patched);
+
+        // when
+        Bus result = underTest.patch("1", new BusPatchRequest(null, null, "patched"));
+
+        // then
+        verify(mockRepository).updateFields("1", Map.of("description", "patched"), "tester", null);
+        verify(mockRepository, never()).findById(anyString());
+        verify(mockRepository, never()).save(any(Bus.class));
+        assertThat(result).isEqualTo(patched);
+    }
+
+    @Test
+    @DisplayName("Update should save with the version taken from If-Match")
+    void testUpdateUsesExpectedVersion() {
+        // given
+        Bus existingBus = new Bus("1", "1234 CE", "000001", "description1");
+        existingBus.setVersion(4L);
+        given(mockRepository.findById("1")).willReturn(Optional.of(existingBus));
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        underTest.update(updateRequest, 3L);
+
+        // then
+        then(mockRepository).should().save(busCaptor.capture());
+        assertThat(busCaptor.getValue().getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    @DisplayName("Update with If-Match should fail for a bus that does not exist")
+    void testUpdateWithExpectedVersionFailsForMissingBus() {
+        // given
+        given(mockRepository.findById("1")).willReturn(Optional.empty());
+
+        // when & then
+        assertThrows(BusVersionConflictException.class, () -> underTest.update(updateRequest, 0L));
+        verify(mockRepository, never()).save(any(Bus.class));
+    }
+
+    @Test
+    @DisplayName("Update without If-Match should ignore the version in the body")
+    void testUpdateWithoutExpectedVersionIgnoresBodyVersion() {
+        // given
+        Bus bus = new Bus("1", "1234 CE", "000001", "description1");
+        bus.setVersion(7L);
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        underTest.update(bus, null);
+
+        // then
+        then(mockRepository).should().save(busCaptor.capture());
+        assertThat(busCaptor.getValue().getVersion()).isNull();
+    }
+
+    @Test
+    @DisplayName("Patch with If-Match should fail when the version does not match")
+    void testPatchWithStaleVersionFails() {
+        // given
+        given(mockRepository.updateFields(eq("1"), anyMap(), eq("tester"), eq(2L))).willReturn(null);
+
+        // when & then
+        assertThrows(BusVersionConflictException.class,
+                () -> underTest.patch("1", new BusPatchRequest(null, null, "patched"), 2L));
+    }
+
+    @Test
+    @DisplayName("GetAll with fields should read a projection of only those fields")
+    void testGetAllWithFieldsUsesProjection() {
+        // given
+        given(mockRepository.findAllProjected(Set.of("code", "boardNumber"))).willReturn(List.of(testBus1));
+
+        // when
+        List<Bus> result = underTest.getAll(" code, boardNumber ");
+
+        // then
+        assertThat(result).containsExactly(testBus1);
+        verify(mockRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("GetById with an unknown field should fail with InvalidFieldsException")
+    void testGetByIdRejectsUnknownField() {
+        // when & then
+        assertThrows(InvalidFieldsException.class, () -> underTest.getById("1", "code,colour"));
+        verify(mockRepository, never()).findProjectedById(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Search should pass trimmed criteria to the repository and drop blank ones")
+    void testSearchPassesCriteria() {
+        // given
+        given(mockRepository.searchPageAfter("000001", null, "city route", null, 3))
+                .willReturn(List.of(testBus1));
+
+        // when
+        BusPage page = underTest.search(" 000001 ", "", "city route", null, 2);
+
+        // then
+        assertThat(page.items()).containsExactly(testBus1);
+        assertFalse(page.hasMore());
+        verify(mockRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("GetByIds should read once with $in, keep the request order and report missing ids")
+    void testGetByIdsKeepsOrderAndReportsMissing() {
+        // given
+        given(mockRepository.findAllById(List.of("3", "x", "1"))).willReturn(List.of(testBus1, testBus3));
+
+        // when
+        BusBatch batch = underTest.getByIds(Arrays.asList("3", "x", null, "1", "3"));
+
+        // then
+        assertThat(batch.items()).containsExactly(testBus3, testBus1);
+        assertThat(batch.missing()).containsExactly("x");
+        verify(mockRepository, times(1)).findAllById(any());
+        verify(mockRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("GetByIds should refuse batches over the limit without querying")
+    void testGetByIdsRejectsTooLargeBatch() {
+        List<String> ids = IntStream.range(0, 501).mapToObj(String::valueOf).toList();
+
+        assertThrows(BatchTooLargeException.class, () -> underTest.getByIds(ids));
+        verify(mockRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("DeleteAll should run one deleteMany with distinct ids and a trimmed prefix")
+    void testDeleteAllDelegatesToDeleteMatching() {
+        // given
+        LocalDateTime before = LocalDateTime.of(2026, 1, 1, 0, 0);
+        given(mockRepository.deleteMatching(List.of("1", "2"), "0000", before)).willReturn(2L);
+
+        // when
+        BusDeleteResult result = underTest.deleteAll(new BusDeleteRequest(List.of("1", "2", "1"), " 0000 ", before));
+
+        // then
+        assertEquals(2L, result.deleted());
+        verify(mockRepository, never()).findAndRemoveById(any());
+    }
+
+    @Test
+    @DisplayName("DeleteAll without any criterion should be refused")
+    void testDeleteAllRejectsEmptyFilter() {
+        assertThrows(EmptyDeleteFilterException.class,
+                () -> underTest.deleteAll(new BusDeleteRequest(null, " ", null)));
+        verify(mockRepository, never()).deleteMatching(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Update should hand an audit entry with the state before and after to the audit service")
+    void testUpdateRecordsAuditEntry() {
+        // given
+        given(mockRepository.findById("1")).willReturn(Optional.of(testBus1));
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        underTest.update(updateRequest);
+
+        // then
+        verify(mockAuditService).record(BusAuditAction.UPDATE, "1", "tester",
+                new BusAuditEntry.State("1234 CE", "000001", "description1", null),
+                new BusAuditEntry.State("1234 CE", "000001", "updated description", null), null);
+    }
+
+    @Test
+    @DisplayName("Delete should audit the removed bus as the state before")
+    void testDeleteRecordsRemovedBus() {
+        // given
+        given(mockRepository.findAndRemoveById("1")).willReturn(testBus1);
+
+        // when
+        underTest.delById("1");
+
+        // then
+        verify(mockAuditService).record(BusAuditAction.DELETE, "1", "tester",
+                new BusAuditEntry.State("1234 CE", "000001", "description1", null), null, null);
+        verify(mockRepository, never()).deleteById(any());
+    }
+
+    @Test
+    @DisplayName("Update should audit the stored version as before, not the If-Match one")
+    void testUpdateAuditsStoredVersionAsBefore() {
+        // given
+        testBus1.setVersion(4L);
+        given(mockRepository.findById("1")).willReturn(Optional.of(testBus1));
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> {
+            Bus saved = invocation.getArgument(0);
+            saved.setVersion(saved.getVersion() == null ? 5L : saved.getVersion() + 1);
+            return saved;
+        });
+
+        // when
+        underTest.update(updateRequest, 4L);
+        underTest.update(updateRequest);
+
+        // then
+        ArgumentCaptor<BusAuditEntry.State> before = ArgumentCaptor.forClass(BusAuditEntry.State.class);
+        verify(mockAuditService, times(2)).record(eq(BusAuditAction.UPDATE), eq("1"), eq("tester"),
+                before.capture(), any(), isNull());
+        assertEquals(4L, before.getAllValues().get(0).version());
+        // the same testBus1 instance, stored at 5 by the first update
+        assertEquals(5L, before.getAllValues().get(1).version());
+    }
+
+    @Test
+    @DisplayName("A whole-bus update should say in its audit note that it has no before state")
+    void testUpdateByEntityNotesMissingBeforeState() {
+        // given
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        underTest.update(new Bus("1", "1234 CE", "000001", "put"), 3L);
+
+        // then
+        verify(mockAuditService).record(eq(BusAuditAction.UPDATE), eq("1"), eq("tester"), isNull(), any(),
+                eq(BusAuditEntry.NO_BEFORE_STATE));
+    }
+
+    @Test
+    @DisplayName("With write-behind on, an unversioned update should be parked and served to reads")
+    void testUnversionedUpdateIsWrittenBehind() {
+        // given
+        BusWriteBehindService writeBehind = new BusWriteBehindService(mockRepository, new ConcurrentMapCacheManager(), new SimpleMeterRegistry(), 10);
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        BusService service = new BusService(mockRepository, () -> Optional.of("tester"), mockAuditService, writeBehind,
+                new BusCodeFilterService(mockRepository, new SimpleMeterRegistry()), new ObjectMapper());
+        Bus changed = new Bus("1", "1234 CE", "000001", "written behind");
+
+        // when
+        service.update(changed);
+
+        // then
+        verify(mockRepository, never()).save(any(Bus.class));
+        assertSame(changed, service.getById("1"));
+        verify(mockRepository, never()).findById(anyString());
+
+        // a versioned update writes the parked one first
+        given(mockRepository.upsertUnordered(anyList())).willReturn(List.of());
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> invocation.getArgument(0));
+        service.update(new Bus("1", "1234 CE", "000001", "versioned"), 3L);
+        verify(mockRepository).upsertUnordered(List.of(changed));
+        verify(mockRepository).save(any(Bus.class));
+    }
+
+    @Test
+    @DisplayName("With write-behind on, a create with the id of a parked bus should write the parked update first")
+    void testCreateWithIdFlushesParkedUpdate() {
+        // given
+        BusWriteBehindService writeBehind = new BusWriteBehindService(mockRepository, new ConcurrentMapCacheManager(), new SimpleMeterRegistry(), 10);
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        BusService service = new BusService(mockRepository, () -> Optional.of("tester"), mockAuditService, writeBehind,
+                new BusCodeFilterService(mockRepository, new SimpleMeterRegistry()), new ObjectMapper());
+        Bus parked = new Bus("1", "1234 CE", "000001", "parked");
+        service.update(parked);
+        given(mockRepository.upsertUnordered(anyList())).willReturn(List.of());
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        // when
+        service.create(new Bus("1", "1234 CE", "000001", "created"));
+
+        // then
+        InOrder inOrder = inOrder(mockRepository);
+        inOrder.verify(mockRepository).upsertUnordered(List.of(parked));
+        inOrder.verify(mockRepository).save(any(Bus.class));
+        assertThat(writeBehind.pending("1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A duplicate create should not be audited")
+    void testDuplicateCreateIsNotAudited() {
+        given(mockRepository.save(any(Bus.class))).willThrow(new DuplicateKeyException("duplicate code"));
+
+        assertNull(underTest.create(createRequest));
+        verifyNoInteractions(mockAuditService);
+    }
 }
\ No newline at end of file
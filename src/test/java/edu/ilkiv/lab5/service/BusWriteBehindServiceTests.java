@@ -0,0 +1,182 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class BusWriteBehindServiceTests
+  version 1.0.0
+  @since 19.10.2026 - 14:00
+*/
+
+import com.mongodb.bulk.BulkWriteError;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.repository.BusRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BusWriteBehindServiceTests {
+
+    private BusRepository mockRepository;
+    private ConcurrentMapCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private BusWriteBehindService underTest;
+
+    @BeforeEach
+    void setUp() {
+        mockRepository = mock(BusRepository.class);
+        given(mockRepository.upsertUnordered(anyList())).willReturn(List.of());
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new ConcurrentMapCacheManager("buses");
+        underTest = new BusWriteBehindService(mockRepository, cacheManager, meterRegistry, 2);
+        ReflectionTestUtils.setField(underTest, "enabled", true);
+        ReflectionTestUtils.setField(underTest, "offerTimeout", Duration.ZERO);
+    }
+
+    private double count(String name, String outcome) {
+        return meterRegistry.get(name).tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    @DisplayName("Repeated updates of one bus should reach Mongo as a single write of the last one")
+    @SuppressWarnings("unchecked")
+    void testUpdatesOfOneBusAreCoalesced() {
+        // given
+        underTest.offer(new Bus("1", "1234 CE", "000001", "first"), "tester");
+        underTest.offer(new Bus("1", "1234 CE", "000001", "second"), "tester");
+        underTest.offer(new Bus("1", "1234 CE", "000001", "third"), "tester");
+        underTest.offer(new Bus("2", "4323 AE", "000002", "other"), "tester");
+
+        // when
+        underTest.flushAll();
+
+        // then
+        ArgumentCaptor<List<Bus>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mockRepository, times(1)).upsertUnordered(captor.capture());
+        assertThat(captor.getValue()).extracting(Bus::getDescription).containsExactlyInAnyOrder("third", "other");
+        assertThat(count("bus.write-behind.updates", "coalesced")).isEqualTo(2);
+        assertThat(count("bus.write-behind.writes", "written")).isEqualTo(2);
+        assertThat(meterRegistry.get("bus.write-behind.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Parked updates should be visible to reads until they are written")
+    void testPendingUpdatesAreVisible() {
+        Bus parked = new Bus("1", "1234 CE", "000001", "parked");
+        underTest.offer(parked, "tester");
+
+        assertThat(underTest.pending("1")).containsSame(parked);
+        assertThat(underTest.overlay(List.of(new Bus("1", "1234 CE", "000001", "stored"),
+                new Bus("2", "4323 AE", "000002", "stored"))))
+                .extracting(Bus::getDescription).containsExactly("parked", "stored");
+        assertThat(parked.getLastModifiedBy()).isEqualTo("tester");
+        assertThat(parked.isParked()).isTrue();
+
+        underTest.flushAll();
+        assertThat(underTest.pending("1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A full buffer should refuse updates of further buses but still coalesce parked ones")
+    void testFullBufferRefusesNewBuses() {
+        assertThat(underTest.offer(new Bus("1", "1234 CE", "000001", "d"), "tester")).isTrue();
+        assertThat(underTest.offer(new Bus("2", "4323 AE", "000002", "d"), "tester")).isTrue();
+
+        Bus refused = new Bus("3", "9423 MO", "000003", "d");
+        assertThat(underTest.offer(refused, "tester")).isFalse();
+        assertThat(refused.isParked()).isFalse();
+        assertThat(underTest.offer(new Bus("1", "1234 CE", "000001", "again"), "tester")).isTrue();
+        assertThat(count("bus.write-behind.updates", "rejected")).isEqualTo(1);
+
+        // a write frees the room again
+        underTest.flushAll();
+        assertThat(underTest.offer(new Bus("3", "9423 MO", "000003", "d"), "tester")).isTrue();
+    }
+
+    @Test
+    @DisplayName("A bus rejected by Mongo should be dropped and counted as failed")
+    void testRejectedBusIsDropped() {
+        given(mockRepository.upsertUnordered(anyList())).willReturn(List.of(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+        underTest.offer(new Bus("1", "1234 CE", "000001", "d"), "tester");
+
+        underTest.flushAll();
+
+        assertThat(count("bus.write-behind.writes", "failed")).isEqualTo(1);
+        assertThat(underTest.pending("1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("A failed bulk should keep the buses parked for the next window")
+    void testFailedBulkKeepsBusesParked() {
+        given(mockRepository.upsertUnordered(anyList())).willThrow(new IllegalStateException("mongo down"));
+        underTest.offer(new Bus("1", "1234 CE", "000001", "d"), "tester");
+
+        try {
+            underTest.flushAll();
+        } catch (IllegalStateException expected) {
+            // the flusher logs it and tries again next window
+        }
+
+        assertThat(underTest.pending("1")).isPresent();
+    }
+
+    @Test
+    @DisplayName("A deleted bus should not be written back by a later flush")
+    @SuppressWarnings("unchecked")
+    void testDeletedBusIsNotWritten() {
+        underTest.offer(new Bus("1", "1234 CE", "000001", "d"), "tester");
+        Supplier<Bus> delete = mock(Supplier.class);
+
+        underTest.discardAndDelete("1", delete);
+        underTest.flushAll();
+
+        verify(delete).get();
+        verify(mockRepository, never()).upsertUnordered(anyList());
+    }
+
+    @Test
+    @DisplayName("A flush should evict the written and the rejected buses from the bus cache")
+    void testFlushEvictsCachedBuses() {
+        // given: stale copies cached while the updates were parked
+        given(mockRepository.upsertUnordered(anyList())).willReturn(List.of(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)));
+        cacheManager.getCache("buses").put("1", new Bus("1", "1234 CE", "000001", "stale"));
+        cacheManager.getCache("buses").put("2", new Bus("2", "4323 AE", "000002", "stale"));
+        underTest.offer(new Bus("1", "1234 CE", "000001", "written"), "tester");
+        underTest.offer(new Bus("2", "4323 AE", "000001", "rejected"), "tester");
+
+        // when
+        underTest.flushAll();
+
+        // then
+        assertThat(cacheManager.getCache("buses").get("1")).isNull();
+        assertThat(cacheManager.getCache("buses").get("2")).isNull();
+    }
+
+    @Test
+    @DisplayName("When disabled every update should be left to the caller")
+    void testDisabledRefusesEverything() {
+        ReflectionTestUtils.setField(underTest, "enabled", false);
+
+        assertThat(underTest.offer(new Bus("1", "1234 CE", "000001", "d"), "tester")).isFalse();
+        assertThat(underTest.pending("1")).isEmpty();
+    }
+}
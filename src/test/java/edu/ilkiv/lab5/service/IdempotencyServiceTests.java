@@ -0,0 +1,195 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class IdempotencyServiceTests
+  version 1.0.0
+  @since 19.10.2026 - 09:45
+*/
+
+import edu.ilkiv.lab5.exception.IdempotencyKeyInProgressException;
+import edu.ilkiv.lab5.exception.IdempotencyKeyReusedException;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.model.IdempotencyRecord;
+import edu.ilkiv.lab5.repository.IdempotencyRepository;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IdempotencyServiceTests {
+
+    @Mock
+    private IdempotencyRepository mockRepository;
+
+    private IdempotencyService underTest;
+
+    private BusCreateRequest request;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        underTest = new IdempotencyService(mockRepository, new ConcurrentMapCacheManager(),
+                Jackson2ObjectMapperBuilder.json().build());
+        request = new BusCreateRequest("5555 AA", "000004", "description4");
+        calls = new AtomicInteger();
+    }
+
+    private Bus create() {
+        calls.incrementAndGet();
+        return new Bus("4", "5555 AA", "000004", "description4");
+    }
+
+    @Test
+    @DisplayName("Without a key the action should simply run")
+    void testRunsWithoutKey() {
+        underTest.execute(null, "POST /dto", request, Bus.class, this::create);
+        underTest.execute(" ", "POST /dto", request, Bus.class, this::create);
+
+        assertThat(calls).hasValue(2);
+        verify(mockRepository, never()).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("A retry with the same key should be replayed from the in-memory front")
+    void testRetryIsReplayedFromFront() {
+        // when
+        Bus first = underTest.execute("k1", "POST /dto", request, Bus.class, this::create);
+        Bus retried = underTest.execute("k1", "POST /dto", request, Bus.class, this::create);
+
+        // then
+        assertThat(calls).hasValue(1);
+        assertThat(retried).isEqualTo(first);
+        assertThat(retried.getCode()).isEqualTo("000004");
+        verify(mockRepository, times(1)).insert(any(IdempotencyRecord.class));
+        verify(mockRepository, times(1)).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("A retry landing on another node should be replayed from the stored record")
+    void testRetryIsReplayedFromStore() {
+        // given: the key was claimed and completed elsewhere
+        IdempotencyRecord stored = new IdempotencyRecord();
+        given(mockRepository.insert(any(IdempotencyRecord.class))).willAnswer(invocation -> {
+            IdempotencyRecord claim = invocation.getArgument(0);
+            stored.setId(claim.getId());
+            stored.setFingerprint(claim.getFingerprint());
+            stored.setResponse("{\"id\":\"4\",\"code\":\"000004\"}");
+            throw new DuplicateKeyException("duplicate key");
+        });
+        given(mockRepository.findById("POST /dto k2")).willReturn(Optional.of(stored));
+
+        // when
+        Bus replayed = underTest.execute("k2", "POST /dto", request, Bus.class, this::create);
+
+        // then
+        assertThat(calls).hasValue(0);
+        assertThat(replayed.getId()).isEqualTo("4");
+    }
+
+    @Test
+    @DisplayName("A key reused with another body should be refused")
+    void testReusedKeyWithOtherBodyIsRefused() {
+        underTest.execute("k3", "POST /dto", request, Bus.class, this::create);
+
+        BusCreateRequest other = new BusCreateRequest("6666 AA", "000005", "description5");
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> underTest.execute("k3", "POST /dto", other, Bus.class, this::create));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("A retry while the first request is still running should get a conflict")
+    void testConcurrentRetryConflicts() {
+        // given: the first request claimed the key but has no response yet
+        given(mockRepository.insert(any(IdempotencyRecord.class))).willAnswer(invocation -> {
+            IdempotencyRecord claim = invocation.getArgument(0);
+            given(mockRepository.findById(claim.getId())).willReturn(Optional.of(claim));
+            throw new DuplicateKeyException("duplicate key");
+        });
+
+        assertThrows(IdempotencyKeyInProgressException.class,
+                () -> underTest.execute("k4", "POST /dto", request, Bus.class, this::create));
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("A retry should take over a claim left without a result past its lease")
+    void testAbandonedClaimIsTakenOver() {
+        // given: the owner claimed the key long ago and never stored a result
+        given(mockRepository.insert(any(IdempotencyRecord.class))).willAnswer(invocation -> {
+            IdempotencyRecord claim = invocation.getArgument(0);
+            claim.setClaimedAt(new Date(0));
+            given(mockRepository.findById(claim.getId())).willReturn(Optional.of(claim));
+            throw new DuplicateKeyException("duplicate key");
+        });
+        given(mockRepository.takeOver(eq("POST /dto k6"), any(), any(), any())).willReturn(1L);
+
+        // when
+        Bus created = underTest.execute("k6", "POST /dto", request, Bus.class, this::create);
+
+        // then
+        assertThat(calls).hasValue(1);
+        assertThat(created.getId()).isEqualTo("4");
+        verify(mockRepository).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("A failed action should release the key for the next retry")
+    void testFailureReleasesKey() {
+        assertThrows(IllegalStateException.class, () -> underTest.execute("k5", "POST /dto", request, Bus.class, () -> {
+            throw new IllegalStateException("mongo down");
+        }));
+
+        ArgumentCaptor<IdempotencyRecord> claim = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mockRepository).insert(claim.capture());
+        verify(mockRepository).release("POST /dto k5", claim.getValue().getClaimedAt());
+        verify(mockRepository, never()).deleteById(any());
+        verify(mockRepository, never()).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    @DisplayName("A failed action on a taken-over key should release only its own claim")
+    void testFailureAfterTakeOverReleasesOwnClaim() {
+        // given: an abandoned claim of the same body, taken over by this request
+        given(mockRepository.insert(any(IdempotencyRecord.class))).willAnswer(invocation -> {
+            IdempotencyRecord abandoned = invocation.getArgument(0);
+            abandoned.setClaimedAt(new Date(0));
+            given(mockRepository.findById(abandoned.getId())).willReturn(Optional.of(abandoned));
+            throw new DuplicateKeyException("duplicate key");
+        });
+        given(mockRepository.takeOver(eq("POST /dto k7"), any(), any(), any())).willReturn(1L);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> underTest.execute("k7", "POST /dto", request, Bus.class, () -> {
+            throw new IllegalStateException("mongo down");
+        }));
+
+        // then: released under the claimedAt it took the key over with
+        ArgumentCaptor<Date> claimedAt = ArgumentCaptor.forClass(Date.class);
+        verify(mockRepository).takeOver(eq("POST /dto k7"), any(), any(), claimedAt.capture());
+        verify(mockRepository).release("POST /dto k7", claimedAt.getValue());
+        verify(mockRepository, never()).deleteById(any());
+    }
+}
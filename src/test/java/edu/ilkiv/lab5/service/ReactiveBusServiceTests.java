@@ -0,0 +1,181 @@
+package edu.ilkiv.lab5.service;
+
+/*
+  @author Bodya
+  @project lab5
+  @class ReactiveBusServiceTests
+  version 1.0.0
+  @since 18.10.2026 - 17:20
+*/
+
+import edu.ilkiv.lab5.exception.BusVersionConflictException;
+import edu.ilkiv.lab5.exception.InvalidCursorException;
+import edu.ilkiv.lab5.model.Bus;
+import edu.ilkiv.lab5.model.BusAuditAction;
+import edu.ilkiv.lab5.model.BusAuditEntry;
+import edu.ilkiv.lab5.repository.ReactiveBusRepository;
+import edu.ilkiv.lab5.request.BusCreateRequest;
+import edu.ilkiv.lab5.request.BusPatchRequest;
+import edu.ilkiv.lab5.request.BusUpdateRequest;
+import edu.ilkiv.lab5.response.BusBulkResult;
+import edu.ilkiv.lab5.response.BusBulkStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ReactiveBusServiceTests {
+    @Mock
+    private ReactiveBusRepository mockRepository;
+
+    @Mock
+    private BusAuditService mockAuditService;
+
+    private ReactiveBusService underTest;
+
+    private Bus testBus1;
+    private Bus testBus2;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        underTest = new ReactiveBusService(mockRepository, () -> Optional.of("tester"), mockAuditService);
+
+        testBus1 = new Bus("1", "1234 CE", "000001", "description1");
+        testBus2 = new Bus("2", "4323 AE", "000002", "description2");
+    }
+
+    @Test
+    @DisplayName("GetAll should emit the buses as the repository produces them")
+    void testGetAllStreamsBuses() {
+        given(mockRepository.findAll()).willReturn(Flux.just(testBus1, testBus2));
+
+        StepVerifier.create(underTest.getAll(), 1)
+                .expectNext(testBus1)
+                .thenRequest(1)
+                .expectNext(testBus2)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("GetPage should report hasMore and a cursor when an extra bus was found")
+    void testGetPageReturnsCursor() {
+        given(mockRepository.findPageAfter(isNull(), eq(2))).willReturn(Flux.just(testBus1, testBus2));
+
+        StepVerifier.create(underTest.getPage(null, 1))
+                .assertNext(page -> {
+                    assertThat(page.items()).containsExactly(testBus1);
+                    assertThat(page.hasMore()).isTrue();
+                    assertThat(page.nextCursor()).isNotNull();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("GetPage should fail with InvalidCursorException for a malformed cursor")
+    void testGetPageRejectsMalformedCursor() {
+        StepVerifier.create(underTest.getPage("@@@", 10))
+                .verifyError(InvalidCursorException.class);
+    }
+
+    @Test
+    @DisplayName("Create should complete empty when the unique code index rejects the insert")
+    void testCreateCompletesEmptyOnDuplicateKey() {
+        given(mockRepository.save(any(Bus.class)))
+                .willReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+
+        StepVerifier.create(underTest.create(new BusCreateRequest("5555 AA", "000001", "taken")))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("CreateAll should skip taken codes and insert the rest in one bulk call")
+    void testCreateAllReportsDuplicates() {
+        List<BusCreateRequest> requests = List.of(
+                new BusCreateRequest("1234 CE", "000001", "taken"),
+                new BusCreateRequest("5555 AA", "000004", "new"));
+        given(mockRepository.findCodesIn(anyList())).willReturn(Flux.just(testBus1));
+        given(mockRepository.insertUnordered(anyList())).willReturn(Mono.just(List.of()));
+
+        StepVerifier.create(underTest.createAll(requests))
+                .assertNext(results -> assertThat(results).extracting(BusBulkResult::status)
+                        .containsExactly(BusBulkStatus.DUPLICATE, BusBulkStatus.CREATED))
+                .verifyComplete();
+        verify(mockRepository).insertUnordered(argThat(buses -> buses.size() == 1));
+    }
+
+    @Test
+    @DisplayName("CreateAll should create every bus without a code without looking codes up")
+    void testCreateAllCreatesBusesWithoutCode() {
+        List<BusCreateRequest> requests = List.of(
+                new BusCreateRequest("1111 AA", null, "no code"),
+                new BusCreateRequest("2222 BB", null, "no code either"));
+        given(mockRepository.insertUnordered(anyList())).willReturn(Mono.just(List.of()));
+
+        StepVerifier.create(underTest.createAll(requests))
+                .assertNext(results -> assertThat(results).extracting(BusBulkResult::status)
+                        .containsExactly(BusBulkStatus.CREATED, BusBulkStatus.CREATED))
+                .verifyComplete();
+        verify(mockRepository, never()).findCodesIn(anyList());
+        verify(mockRepository).insertUnordered(argThat(buses -> buses.size() == 2));
+    }
+
+    @Test
+    @DisplayName("Delete should audit the removed bus as the state before")
+    void testDeleteRecordsRemovedBus() {
+        given(mockRepository.findAndRemoveById("1")).willReturn(Mono.just(testBus1));
+
+        StepVerifier.create(underTest.delById("1")).verifyComplete();
+        verify(mockAuditService).record(BusAuditAction.DELETE, "1", "tester",
+                new BusAuditEntry.State("1234 CE", "000001", "description1", null), null, null);
+    }
+
+    @Test
+    @DisplayName("Update should audit the stored version as before, not the If-Match one")
+    void testUpdateAuditsStoredVersionAsBefore() {
+        testBus1.setVersion(4L);
+        given(mockRepository.findById("1")).willReturn(Mono.just(testBus1));
+        given(mockRepository.save(any(Bus.class))).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(underTest.update(new BusUpdateRequest("1", "1234 CE", "000001", "updated"), null))
+                .expectNextCount(1)
+                .verifyComplete();
+        verify(mockAuditService).record(eq(BusAuditAction.UPDATE), eq("1"), eq("tester"),
+                eq(new BusAuditEntry.State("1234 CE", "000001", "description1", 4L)), any(), isNull());
+    }
+
+    @Test
+    @DisplayName("Update with If-Match should fail for a bus that does not exist")
+    void testUpdateWithExpectedVersionFailsForMissingBus() {
+        given(mockRepository.findById("1")).willReturn(Mono.empty());
+
+        StepVerifier.create(underTest.update(new BusUpdateRequest("1", "1234 CE", "000001", "updated"), 0L))
+                .verifyError(BusVersionConflictException.class);
+        verify(mockRepository, never()).save(any(Bus.class));
+    }
+
+    @Test
+    @DisplayName("Patch should set only the supplied fields and fail on a stale version")
+    void testPatchWithStaleVersionFails() {
+        given(mockRepository.updateFields(eq("1"), anyMap(), eq("tester"), eq(2L))).willReturn(Mono.empty());
+
+        StepVerifier.create(underTest.patch("1", new BusPatchRequest(null, null, "patched"), 2L))
+                .verifyError(BusVersionConflictException.class);
+        verify(mockRepository).updateFields("1", Map.of("description", "patched"), "tester", 2L);
+    }
+}